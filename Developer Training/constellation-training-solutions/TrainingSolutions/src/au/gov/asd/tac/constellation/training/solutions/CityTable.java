@@ -0,0 +1,249 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * City Table.
+ * <p>
+ * Holds the cities in an array indexed by their dense int id, together with an
+ * open addressing table from lower case city names to ids. Names are hashed and
+ * compared a character at a time with case folding applied on the fly, so a
+ * city can be found from a mixed case name, or from the ISO-8859-1 bytes of a
+ * CSV field, without allocating a lower case copy.
+ */
+final class CityTable {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int NO_CITY = -1;
+
+    private City[] cities;
+    private String[] keys;
+    private int size = 0;
+
+    private int[] slots;
+    private int[] hashes;
+
+    CityTable() {
+        cities = new City[DEFAULT_CAPACITY];
+        keys = new String[DEFAULT_CAPACITY];
+        slots = new int[DEFAULT_CAPACITY * 2];
+        hashes = new int[DEFAULT_CAPACITY * 2];
+        Arrays.fill(slots, NO_CITY);
+    }
+
+    /**
+     * Returns the number of cities in the table.
+     *
+     * @return the number of cities in the table.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the city with the specified id.
+     *
+     * @param cityId the id of the city.
+     * @return the city with the specified id, or null if there is no such
+     * city.
+     */
+    City get(final int cityId) {
+        return cityId >= 0 && cityId < size ? cities[cityId] : null;
+    }
+
+    /**
+     * Returns the lower case name a city was added with.
+     *
+     * @param cityId the id of the city.
+     * @return the lower case name of the city.
+     */
+    String getKey(final int cityId) {
+        return keys[cityId];
+    }
+
+    /**
+     * Returns the city with the specified name, ignoring case.
+     *
+     * @param name the name of the city.
+     * @return the city with the specified name, or null if there is no such
+     * city.
+     */
+    City find(final String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + Character.toLowerCase(name.charAt(i));
+        }
+        final int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; slots[slot] != NO_CITY; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && matches(keys[slots[slot]], name)) {
+                return cities[slots[slot]];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the city whose name, ignoring case, is held in the specified
+     * range of ISO-8859-1 encoded bytes.
+     *
+     * @param bytes the bytes holding the name of the city.
+     * @param start the start (inclusive) of the name.
+     * @param end the end (exclusive) of the name.
+     * @return the city with the specified name, or null if there is no such
+     * city.
+     */
+    City find(final byte[] bytes, final int start, final int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + Character.toLowerCase((char) (bytes[i] & 0xFF));
+        }
+        final int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; slots[slot] != NO_CITY; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && matches(keys[slots[slot]], bytes, start, end)) {
+                return cities[slots[slot]];
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(final String key, final String name) {
+        if (key.length() != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != Character.toLowerCase(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(final String key, final byte[] bytes, final int start, final int end) {
+        if (key.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (key.charAt(i - start) != Character.toLowerCase((char) (bytes[i] & 0xFF))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Adds a city under the specified name. The city's id must be the current
+     * size of the table.
+     *
+     * @param key the lower case name of the city.
+     * @param city the city.
+     */
+    void add(final String key, final City city) {
+        if (city.getId() != size) {
+            throw new IllegalArgumentException("City " + key + " has id " + city.getId() + " but the next id is " + size);
+        }
+        if (size == cities.length) {
+            cities = Arrays.copyOf(cities, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        cities[size] = city;
+        keys[size] = key;
+        size++;
+        if (size > slots.length >> 1) {
+            rehash(slots.length * 2);
+        } else {
+            insert(size - 1);
+        }
+    }
+
+    /**
+     * Replaces the city with the same id as the specified city, keeping the
+     * name it was added under.
+     *
+     * @param city the replacement city.
+     */
+    void replace(final City city) {
+        if (city.getId() < 0 || city.getId() >= size) {
+            throw new IllegalArgumentException("There is no city with id " + city.getId());
+        }
+        cities[city.getId()] = city;
+    }
+
+    /**
+     * Removes every city from the table.
+     */
+    void clear() {
+        Arrays.fill(cities, 0, size, null);
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(slots, NO_CITY);
+        size = 0;
+    }
+
+    private void insert(final int cityId) {
+        final String key = keys[cityId];
+        final int hash = key.hashCode();
+        final int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != NO_CITY) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = cityId;
+        hashes[slot] = hash;
+    }
+
+    private void rehash(final int capacity) {
+        slots = new int[capacity];
+        hashes = new int[capacity];
+        Arrays.fill(slots, NO_CITY);
+        for (int cityId = 0; cityId < size; cityId++) {
+            insert(cityId);
+        }
+    }
+
+    /**
+     * Returns a read-only list of the cities ordered by id.
+     *
+     * @return a read-only list of the cities ordered by id.
+     */
+    List<City> asList() {
+        return new CityList();
+    }
+
+    private final class CityList extends AbstractList<City> implements RandomAccess {
+
+        @Override
+        public City get(final int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " is outside a list of " + size + " cities");
+            }
+            return cities[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
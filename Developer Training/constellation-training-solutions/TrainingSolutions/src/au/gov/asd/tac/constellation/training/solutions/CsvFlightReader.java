@@ -0,0 +1,121 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * CSV Flight Reader.
+ * <p>
+ * Reads flights from a stream in the format of Flights.csv: a header line
+ * followed by lines of source city, destination city, departure time,
+ * passenger count and airline. Files whose names end in ".gz" are decompressed
+ * as they are read.
+ */
+final class CsvFlightReader implements FlightSource.Reader {
+
+    private static final int GZIP_BUFFER_SIZE = 1 << 16;
+
+    private final CsvTokenizer in;
+    private final CityTable cities;
+    private boolean headerSkipped = false;
+
+    private City source;
+    private City destination;
+    private long departureTime;
+    private int passengers;
+    private String airline;
+
+    CsvFlightReader(final InputStream in, final CityTable cities) {
+        this.in = new CsvTokenizer(in);
+        this.cities = cities;
+    }
+
+    /**
+     * Opens a reader over the specified file, decompressing it if its name
+     * ends in ".gz".
+     *
+     * @param file the file to read.
+     * @param cities the cities that flights may refer to.
+     * @return a reader over the specified file.
+     * @throws IOException if the file cannot be opened.
+     */
+    static CsvFlightReader open(final File file, final CityTable cities) throws IOException {
+        final InputStream stream = new FileInputStream(file);
+        try {
+            return new CsvFlightReader(isCompressed(file) ? new GZIPInputStream(stream, GZIP_BUFFER_SIZE) : stream, cities);
+        } catch (final IOException ex) {
+            stream.close();
+            throw ex;
+        }
+    }
+
+    static boolean isCompressed(final File file) {
+        return file.getName().toLowerCase().endsWith(".gz");
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        if (!headerSkipped) {
+            headerSkipped = true;
+            in.nextRecord();
+        }
+        if (!in.nextRecord()) {
+            return false;
+        }
+        source = in.nextCity(cities);
+        destination = in.nextCity(cities);
+        departureTime = in.nextLong();
+        passengers = in.nextInt();
+        airline = in.nextPooledString();
+        return true;
+    }
+
+    @Override
+    public City getSource() {
+        return source;
+    }
+
+    @Override
+    public City getDestination() {
+        return destination;
+    }
+
+    @Override
+    public long getDepartureTime() {
+        return departureTime;
+    }
+
+    @Override
+    public int getPassengers() {
+        return passengers;
+    }
+
+    @Override
+    public String getAirline() {
+        return airline;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
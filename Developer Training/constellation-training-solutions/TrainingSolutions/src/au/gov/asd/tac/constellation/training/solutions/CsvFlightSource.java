@@ -0,0 +1,72 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import org.openide.modules.InstalledFileLocator;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * CSV Flight Source.
+ * <p>
+ * Reads flights from a plain CSV file, by default the Flights.csv file shipped
+ * with this module.
+ */
+@ServiceProvider(service = FlightSource.class, position = 300)
+public class CsvFlightSource implements FlightSource {
+
+    private final File file;
+
+    public CsvFlightSource() {
+        this(InstalledFileLocator.getDefault().locate("modules/ext/Flights.csv", "au.gov.asd.constellation.training.solutions", true));
+    }
+
+    public CsvFlightSource(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the file this source reads.
+     *
+     * @return the file this source reads.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public String getName() {
+        return file == null ? "Flights.csv" : file.getName();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return file != null && file.isFile();
+    }
+
+    @Override
+    public List<File> getFiles() {
+        return file == null ? Collections.emptyList() : Collections.singletonList(file);
+    }
+
+    @Override
+    public Reader open() throws IOException {
+        return CsvFlightReader.open(file, OutbreakUtilities.getCities());
+    }
+}
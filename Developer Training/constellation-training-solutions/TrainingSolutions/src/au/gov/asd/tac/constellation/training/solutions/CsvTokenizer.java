@@ -0,0 +1,429 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * CSV Tokenizer.
+ * <p>
+ * A streaming tokenizer for the simple comma separated files used by this
+ * module, where fields are never quoted. Numbers are parsed directly from the
+ * underlying byte buffer and repeated strings can be interned as they are read,
+ * so reading a record does not allocate unless a new string is requested.
+ * <p>
+ * The data files are encoded as ISO-8859-1, so each byte is decoded as a single
+ * character.
+ */
+public final class CsvTokenizer implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Powers of ten that are exactly representable as a double, used by the
+     * fast path of {@link #nextFloat()}.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final InputStream in;
+    private final ByteBuffer source;
+    private final StringPool pool = new StringPool();
+
+    private byte[] buffer;
+    private int limit = 0;
+    private boolean endOfInput = false;
+
+    private int recordEnd = -1;
+    private int contentEnd = -1;
+    private int cursor = 0;
+    private long lineNumber = 0;
+
+    /**
+     * Creates a tokenizer that reads from an input stream. The stream is read
+     * in large blocks, so it does not need to be buffered.
+     *
+     * @param in the stream to read from.
+     */
+    public CsvTokenizer(final InputStream in) {
+        this.in = in;
+        this.source = null;
+        this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Creates a tokenizer that reads the remaining bytes of a buffer.
+     *
+     * @param source the buffer to read from.
+     */
+    public CsvTokenizer(final ByteBuffer source) {
+        this.in = null;
+        this.source = source;
+        this.buffer = new byte[Math.max(1, Math.min(DEFAULT_BUFFER_SIZE, source.remaining()))];
+    }
+
+    /**
+     * Advances to the next non-empty record.
+     *
+     * @return true if a record is available, or false if the input has been
+     * exhausted.
+     * @throws IOException if the underlying input cannot be read.
+     */
+    public boolean nextRecord() throws IOException {
+        int position = Math.min(recordEnd + 1, limit);
+        int scanFrom = position;
+        while (true) {
+            int newline = -1;
+            for (int i = scanFrom; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    newline = i;
+                    break;
+                }
+            }
+            if (newline < 0 && !endOfInput) {
+                // The record is incomplete, so move it to the front of the
+                // buffer and read more input, only scanning the new bytes.
+                final int scanned = limit - position;
+                compactAndFill(position);
+                position = 0;
+                scanFrom = scanned;
+                continue;
+            }
+            if (newline < 0 && position == limit) {
+                recordEnd = limit;
+                contentEnd = limit;
+                cursor = limit + 1;
+                return false;
+            }
+            final int end = newline < 0 ? limit : newline;
+            final int content = end > position && buffer[end - 1] == '\r' ? end - 1 : end;
+            lineNumber++;
+            if (content == position) {
+                // Skip blank lines.
+                position = Math.min(end + 1, limit);
+                scanFrom = position;
+                continue;
+            }
+            recordEnd = end;
+            contentEnd = content;
+            cursor = position;
+            return true;
+        }
+    }
+
+    /**
+     * Moves the unread bytes starting at the specified position to the front of
+     * the buffer, growing it if it is full, and reads more input after them.
+     */
+    private void compactAndFill(final int position) throws IOException {
+        final int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        } else if (remaining == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        limit = remaining;
+        final int read = read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private int read(final byte[] destination, final int offset, final int length) throws IOException {
+        if (in != null) {
+            return in.read(destination, offset, length);
+        }
+        final int count = Math.min(length, source.remaining());
+        if (count == 0) {
+            return -1;
+        }
+        source.get(destination, offset, count);
+        return count;
+    }
+
+    /**
+     * Returns the line number of the current record, counting from 1.
+     *
+     * @return the line number of the current record.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns true if the current record has at least one more field to read.
+     *
+     * @return true if the current record has at least one more field to read.
+     */
+    public boolean hasMoreFields() {
+        return cursor <= contentEnd;
+    }
+
+    /**
+     * Returns the end (exclusive) of the next field, advancing the cursor past
+     * it and its separator.
+     */
+    private int advanceField() {
+        if (cursor > contentEnd) {
+            throw new IllegalArgumentException("Line " + lineNumber + " has too few fields");
+        }
+        int end = cursor;
+        while (end < contentEnd && buffer[end] != ',') {
+            end++;
+        }
+        cursor = end + 1;
+        return end;
+    }
+
+    /**
+     * Skips the next field of the current record.
+     */
+    public void skipField() {
+        advanceField();
+    }
+
+    /**
+     * Reads the next field of the current record as a new string.
+     *
+     * @return the next field.
+     */
+    public String nextString() {
+        final int start = cursor;
+        final int end = advanceField();
+        return new String(buffer, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Reads the next field of the current record, returning the same string
+     * instance as any previous field read by this method with the same
+     * content. This avoids allocating a string for fields such as country codes
+     * and airlines that repeat throughout a file.
+     *
+     * @return the next field.
+     */
+    public String nextPooledString() {
+        final int start = cursor;
+        final int end = advanceField();
+        return pool.get(buffer, start, end);
+    }
+
+    /**
+     * Reads the next field of the current record as a city name, returning the
+     * matching city from the specified table without decoding the field.
+     *
+     * @param cities the table of cities to look the name up in.
+     * @return the city named by the next field, or null if there is no such
+     * city.
+     */
+    City nextCity(final CityTable cities) {
+        final int start = cursor;
+        final int end = advanceField();
+        return cities.find(buffer, start, end);
+    }
+
+    /**
+     * Reads the next field of the current record as an int.
+     *
+     * @return the next field.
+     * @throws NumberFormatException if the field is not a valid int.
+     */
+    public int nextInt() {
+        final long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of range on line " + lineNumber + ": " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads the next field of the current record as a long.
+     *
+     * @return the next field.
+     * @throws NumberFormatException if the field is not a valid long.
+     */
+    public long nextLong() {
+        final int start = cursor;
+        final int end = advanceField();
+        int i = start;
+        final boolean negative = i < end && buffer[i] == '-';
+        if (negative || (i < end && buffer[i] == '+')) {
+            i++;
+        }
+        if (i == end) {
+            throw invalidNumber(start, end);
+        }
+        // Accumulate as a negative number so that Long.MIN_VALUE can be read.
+        long value = 0;
+        for (; i < end; i++) {
+            final int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9 || value < (Long.MIN_VALUE + digit) / 10) {
+                throw invalidNumber(start, end);
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw invalidNumber(start, end);
+            }
+            value = -value;
+        }
+        return value;
+    }
+
+    /**
+     * Reads the next field of the current record as a float. Plain decimal
+     * numbers with up to 15 significant digits are parsed without allocation,
+     * giving the same result as {@link Float#parseFloat(String)}; anything else
+     * falls back to that method.
+     *
+     * @return the next field.
+     * @throws NumberFormatException if the field is not a valid float.
+     */
+    public float nextFloat() {
+        final int start = cursor;
+        final int end = advanceField();
+        int i = start;
+        final boolean negative = i < end && buffer[i] == '-';
+        if (negative || (i < end && buffer[i] == '+')) {
+            i++;
+        }
+        long mantissa = 0;
+        boolean anyDigits = false;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean point = false;
+        boolean valid = i < end;
+        for (; i < end && valid; i++) {
+            final byte b = buffer[i];
+            if (b >= '0' && b <= '9') {
+                anyDigits = true;
+                if (mantissa != 0 || b != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (point) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                valid = false;
+            }
+        }
+        if (valid && anyDigits && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+            // Both operands are exact doubles, so the quotient is the correctly
+            // rounded double. Narrowing that to a float gives the correctly
+            // rounded float unless the double lies exactly halfway between two
+            // floats, which is left to the slow path.
+            final double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            final long bits = Double.doubleToRawLongBits(value);
+            final float result = (float) value;
+            if ((bits & 0x1FFFFFFFL) != 0x10000000L && (result == 0 || Math.abs(result) >= Float.MIN_NORMAL) && !Float.isInfinite(result)) {
+                return negative ? -result : result;
+            }
+        }
+        return Float.parseFloat(new String(buffer, start, end - start, StandardCharsets.ISO_8859_1));
+    }
+
+    private NumberFormatException invalidNumber(final int start, final int end) {
+        return new NumberFormatException("For input string: \"" + new String(buffer, start, end - start, StandardCharsets.ISO_8859_1) + "\" on line " + lineNumber);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    /**
+     * An open addressing table of strings keyed by their ISO-8859-1 bytes, so
+     * that a string already in the pool can be found without decoding the
+     * bytes.
+     */
+    private static final class StringPool {
+
+        private String[] strings = new String[256];
+        private int[] hashes = new int[256];
+        private int size = 0;
+
+        private String get(final byte[] bytes, final int start, final int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + (bytes[i] & 0xFF);
+            }
+            final int mask = strings.length - 1;
+            int slot = mix(hash) & mask;
+            while (strings[slot] != null) {
+                if (hashes[slot] == hash && matches(strings[slot], bytes, start, end)) {
+                    return strings[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            final String string = new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+            strings[slot] = string;
+            hashes[slot] = hash;
+            if (++size > strings.length >> 1) {
+                rehash();
+            }
+            return string;
+        }
+
+        private static boolean matches(final String string, final byte[] bytes, final int start, final int end) {
+            if (string.length() != end - start) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (string.charAt(i - start) != (bytes[i] & 0xFF)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int mix(final int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private void rehash() {
+            final String[] oldStrings = strings;
+            final int[] oldHashes = hashes;
+            strings = new String[oldStrings.length * 2];
+            hashes = new int[oldHashes.length * 2];
+            final int mask = strings.length - 1;
+            for (int i = 0; i < oldStrings.length; i++) {
+                if (oldStrings[i] != null) {
+                    int slot = mix(oldHashes[i]) & mask;
+                    while (strings[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    strings[slot] = oldStrings[i];
+                    hashes[slot] = oldHashes[i];
+                }
+            }
+        }
+    }
+}
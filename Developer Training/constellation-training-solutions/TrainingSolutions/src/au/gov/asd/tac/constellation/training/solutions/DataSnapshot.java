@@ -0,0 +1,351 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Data Snapshot.
+ * <p>
+ * A versioned binary snapshot of the parsed cities, outbreaks and flights, so
+ * that later sessions can memory map the snapshot rather than parse the CSV
+ * files again. The snapshot records the size and modification time of each
+ * source file and is ignored if any of them has changed.
+ * <p>
+ * The file consists of a header, a string table and then fixed width columns
+ * for the cities and flights, with every string column holding an index into
+ * the string table. The outbreaks of the cities are stored after the city
+ * columns, encoded with the {@link OutbreakCodec}.
+ */
+final class DataSnapshot {
+
+    private static final Logger LOGGER = Logger.getLogger(DataSnapshot.class.getName());
+
+    private static final int MAGIC = 0x504E444D;
+    private static final int VERSION = 2;
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final String[] strings;
+    private final int citiesPosition;
+
+    private DataSnapshot(final File file, final ByteBuffer buffer, final String[] strings) {
+        this.file = file;
+        this.buffer = buffer;
+        this.strings = strings;
+        this.citiesPosition = buffer.position();
+    }
+
+    /**
+     * Opens the snapshot in the specified file if it exists and was written
+     * from the current versions of the specified source files. A snapshot
+     * whose header or string table is corrupt is deleted, so that it is
+     * replaced rather than failing every later session.
+     *
+     * @param snapshotFile the snapshot file.
+     * @param sources the source files the snapshot was written from.
+     * @return the snapshot, or null if there is no valid snapshot.
+     */
+    static DataSnapshot open(final File snapshotFile, final File... sources) {
+        if (snapshotFile == null || !snapshotFile.isFile()) {
+            return null;
+        }
+        try (final FileChannel channel = FileChannel.open(snapshotFile.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != sources.length) {
+                return null;
+            }
+            for (final File source : sources) {
+                if (buffer.getLong() != source.length() || buffer.getLong() != source.lastModified()) {
+                    return null;
+                }
+            }
+            final String[] strings = new String[getCount(buffer, Integer.BYTES)];
+            byte[] bytes = new byte[64];
+            for (int i = 0; i < strings.length; i++) {
+                final int length = getCount(buffer, 1);
+                if (length > bytes.length) {
+                    bytes = new byte[length];
+                }
+                buffer.get(bytes, 0, length);
+                strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+            return new DataSnapshot(snapshotFile, buffer, strings);
+        } catch (final IOException ex) {
+            LOGGER.log(Level.WARNING, "Ignoring unreadable data snapshot " + snapshotFile, ex);
+            return null;
+        } catch (final RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Discarding corrupt data snapshot " + snapshotFile, ex);
+            delete(snapshotFile);
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the specified snapshot file after it could not be read.
+     *
+     * @param snapshotFile the snapshot file.
+     */
+    static void delete(final File snapshotFile) {
+        try {
+            Files.deleteIfExists(snapshotFile.toPath());
+        } catch (final IOException ex) {
+            LOGGER.log(Level.WARNING, "Unable to delete unreadable data snapshot " + snapshotFile, ex);
+        }
+    }
+
+    /**
+     * Returns the file this snapshot was opened from.
+     *
+     * @return the snapshot file.
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Reads the cities and their outbreaks from the snapshot.
+     *
+     * @param cities the table of cities to populate.
+     */
+    void readCities(final CityTable cities) {
+        final ByteBuffer in = buffer.duplicate();
+        in.position(citiesPosition);
+        final int cityCount = getCount(in, 4 * Integer.BYTES + 2 * Float.BYTES);
+        final int[] keys = readInts(in, cityCount);
+        final int[] names = readInts(in, cityCount);
+        final int[] countries = readInts(in, cityCount);
+        final int[] populations = readInts(in, cityCount);
+        final float[] latitudes = new float[cityCount];
+        in.asFloatBuffer().get(latitudes);
+        in.position(in.position() + cityCount * Float.BYTES);
+        final float[] longitudes = new float[cityCount];
+        in.asFloatBuffer().get(longitudes);
+        in.position(in.position() + cityCount * Float.BYTES);
+        final int[] diseaseNameIds = readInts(in, getCount(in, Integer.BYTES));
+        final String[] diseaseNames = new String[diseaseNameIds.length];
+        for (int i = 0; i < diseaseNameIds.length; i++) {
+            diseaseNames[i] = strings[diseaseNameIds[i]];
+        }
+        final int[] diseaseIds = OutbreakCodec.mapDiseases(diseaseNames);
+        final int outbreaksLength = getCount(in, 1);
+        final ByteBuffer outbreaks = in.slice();
+        outbreaks.limit(outbreaksLength);
+
+        for (int cityId = 0; cityId < cityCount; cityId++) {
+            final City city = new City(cityId, strings[names[cityId]], strings[countries[cityId]], populations[cityId], latitudes[cityId], longitudes[cityId]);
+            city.setOutbreak(OutbreakCodec.read(outbreaks, diseaseIds));
+            cities.add(strings[keys[cityId]], city);
+        }
+    }
+
+    /**
+     * Reads the flights from the snapshot, appending them to the specified
+     * table. The columns are copied straight from the mapped file into the
+     * table.
+     *
+     * @param flights the table to append the flights to.
+     */
+    void readFlights(final FlightTable flights) {
+        final ByteBuffer in = buffer.duplicate();
+        in.position(citiesPosition);
+        final int cityCount = getCount(in, 4 * Integer.BYTES + 2 * Float.BYTES);
+        in.position(in.position() + cityCount * (4 * Integer.BYTES + 2 * Float.BYTES));
+        final int diseaseCount = getCount(in, Integer.BYTES);
+        in.position(in.position() + diseaseCount * Integer.BYTES);
+        final int outbreaksLength = getCount(in, 1);
+        in.position(in.position() + outbreaksLength);
+
+        final int flightCount = getCount(in, Long.BYTES + 4 * Integer.BYTES);
+        final LongBuffer departureTimes = in.asLongBuffer();
+        departureTimes.limit(flightCount);
+        in.position(in.position() + flightCount * Long.BYTES);
+        final IntBuffer sources = sliceInts(in, flightCount);
+        final IntBuffer destinations = sliceInts(in, flightCount);
+        final IntBuffer passengers = sliceInts(in, flightCount);
+        final IntBuffer airlines = sliceInts(in, flightCount);
+
+        flights.addAll(departureTimes, sources, destinations, passengers, airlines, strings);
+    }
+
+    /**
+     * Reads a count of items of the specified width, checking that the items
+     * fit in the rest of the buffer, so that a corrupt count fails here rather
+     * than as a negative or enormous allocation.
+     */
+    private static int getCount(final ByteBuffer in, final int width) {
+        final int count = in.getInt();
+        if (count < 0 || count > in.remaining() / width) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    private static IntBuffer sliceInts(final ByteBuffer in, final int count) {
+        final IntBuffer values = in.asIntBuffer();
+        values.limit(count);
+        in.position(in.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    private static int[] readInts(final ByteBuffer in, final int count) {
+        final int[] values = new int[count];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    /**
+     * Writes a snapshot of the specified cities and flights. The snapshot is
+     * written to a temporary file first and then moved into place, so a reader
+     * never sees a partially written snapshot.
+     *
+     * @param snapshotFile the snapshot file.
+     * @param sources the source files the data was parsed from.
+     * @param cities the cities.
+     * @param flights the flights.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    static void write(final File snapshotFile, final File[] sources, final CityTable cities, final FlightTable flights) throws IOException {
+        final StringTable stringTable = new StringTable();
+        final List<City> citiesById = cities.asList();
+
+        final File temporaryFile = File.createTempFile(snapshotFile.getName(), ".tmp", snapshotFile.getParentFile());
+        try {
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile), 1 << 16))) {
+                // Build the string table before writing anything, as it
+                // precedes the columns that refer to it.
+                final int cityCount = citiesById.size();
+                final int[] keyIds = new int[cityCount];
+                final int[] nameIds = new int[cityCount];
+                final int[] countryIds = new int[cityCount];
+                final ByteArrayOutputStream outbreaks = new ByteArrayOutputStream();
+                for (int cityId = 0; cityId < cityCount; cityId++) {
+                    final City city = citiesById.get(cityId);
+                    keyIds[cityId] = stringTable.add(cities.getKey(cityId));
+                    nameIds[cityId] = stringTable.add(city.getName());
+                    countryIds[cityId] = stringTable.add(city.getCountry());
+                    OutbreakCodec.write(city.getOutbreak(), outbreaks);
+                }
+                final int[] diseaseNameIds = new int[DiseaseDictionary.size()];
+                for (int diseaseId = 0; diseaseId < diseaseNameIds.length; diseaseId++) {
+                    diseaseNameIds[diseaseId] = stringTable.add(DiseaseDictionary.getName(diseaseId));
+                }
+                final int[] airlineIds = new int[flights.getAirlineCount()];
+                for (int airlineId = 0; airlineId < airlineIds.length; airlineId++) {
+                    airlineIds[airlineId] = stringTable.add(flights.getAirlineName(airlineId));
+                }
+
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(sources.length);
+                for (final File source : sources) {
+                    out.writeLong(source.length());
+                    out.writeLong(source.lastModified());
+                }
+
+                out.writeInt(stringTable.strings.size());
+                for (final String string : stringTable.strings.keySet()) {
+                    final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+
+                out.writeInt(cityCount);
+                writeInts(out, keyIds);
+                writeInts(out, nameIds);
+                writeInts(out, countryIds);
+                for (final City city : citiesById) {
+                    out.writeInt(city.getPopulation());
+                }
+                for (final City city : citiesById) {
+                    out.writeFloat(city.getLatitude());
+                }
+                for (final City city : citiesById) {
+                    out.writeFloat(city.getLongitude());
+                }
+                out.writeInt(diseaseNameIds.length);
+                writeInts(out, diseaseNameIds);
+                out.writeInt(outbreaks.size());
+                outbreaks.writeTo(out);
+
+                final int flightCount = flights.size();
+                out.writeInt(flightCount);
+                for (int row = 0; row < flightCount; row++) {
+                    out.writeLong(flights.getDepartureTime(row));
+                }
+                for (int row = 0; row < flightCount; row++) {
+                    out.writeInt(flights.getSourceId(row));
+                }
+                for (int row = 0; row < flightCount; row++) {
+                    out.writeInt(flights.getDestinationId(row));
+                }
+                for (int row = 0; row < flightCount; row++) {
+                    out.writeInt(flights.getPassengers(row));
+                }
+                for (int row = 0; row < flightCount; row++) {
+                    out.writeInt(airlineIds[flights.getAirlineId(row)]);
+                }
+            }
+            try {
+                Files.move(temporaryFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException ex) {
+                Files.move(temporaryFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
+    }
+
+    private static void writeInts(final DataOutputStream out, final int[] values) throws IOException {
+        for (final int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Assigns each distinct string an index in order of first appearance.
+     */
+    private static final class StringTable {
+
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+        private int add(final String string) {
+            return strings.computeIfAbsent(string, s -> strings.size());
+        }
+    }
+}
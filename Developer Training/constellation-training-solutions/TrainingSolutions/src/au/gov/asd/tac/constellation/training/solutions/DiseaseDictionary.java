@@ -0,0 +1,102 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Disease Dictionary.
+ * <p>
+ * Assigns every disease name a dense int id for the lifetime of the
+ * application, so that an Outbreak can hold its diseases as a sorted array of
+ * ids. Ids are assigned in the order names are first seen and are never
+ * reused.
+ */
+final class DiseaseDictionary {
+
+    static final int UNKNOWN_DISEASE = -1;
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static int size = 0;
+
+    private DiseaseDictionary() {
+    }
+
+    /**
+     * Returns the id of the specified disease, assigning it a new id if it
+     * has not been seen before.
+     *
+     * @param name the name of the disease.
+     * @return the id of the disease.
+     */
+    static int getId(final String name) {
+        final Integer id = IDS.get(name);
+        return id != null ? id : addName(name);
+    }
+
+    private static synchronized int addName(final String name) {
+        final Integer existing = IDS.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        final int id = size++;
+        String[] current = names;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, id * 2);
+        }
+        current[id] = name;
+        // Publish the name before the id, so a reader holding the id can
+        // always find the name.
+        names = current;
+        IDS.put(name, id);
+        return id;
+    }
+
+    /**
+     * Returns the id of the specified disease without assigning a new one.
+     *
+     * @param name the name of the disease.
+     * @return the id of the disease, or {@link #UNKNOWN_DISEASE} if it has
+     * not been seen before.
+     */
+    static int findId(final String name) {
+        final Integer id = IDS.get(name);
+        return id != null ? id : UNKNOWN_DISEASE;
+    }
+
+    /**
+     * Returns the number of diseases that have been assigned ids, which are
+     * the ids from 0 up to but not including this number.
+     *
+     * @return the number of diseases.
+     */
+    static synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the name of the disease with the specified id.
+     *
+     * @param id the id of the disease.
+     * @return the name of the disease.
+     */
+    static String getName(final int id) {
+        return names[id];
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Flight File Loader.
+ * <p>
+ * Loads a flights CSV file by memory mapping it, splitting it into chunks at
+ * line boundaries and parsing the chunks in parallel on a fork-join pool. Each
+ * chunk is parsed into its own FlightTable and the tables are then appended in
+ * file order, so the result is identical to reading the file line by line.
+ */
+final class FlightFileLoader {
+
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    private static final long MAX_CHUNK_SIZE = 1L << 28;
+    private static final int BOUNDARY_SCAN_SIZE = 1 << 12;
+    private static final int ESTIMATED_BYTES_PER_FLIGHT = 40;
+    private static final int TAIL_CHECK_SIZE = 256;
+
+    private FlightFileLoader() {
+    }
+
+    /**
+     * How much of a flights file has been read, along with enough about the
+     * file to tell whether it is still the same file when it is next read:
+     * its file key, on file systems that have one, and the bytes just before
+     * the offset. The modification time is not used, as every append changes
+     * it.
+     */
+    static final class Position {
+
+        private final long offset;
+        private final Object fileKey;
+        private final byte[] tail;
+
+        private Position(final long offset, final Object fileKey, final byte[] tail) {
+            this.offset = offset;
+            this.fileKey = fileKey;
+            this.tail = tail;
+        }
+
+        /**
+         * Returns the number of bytes of the file that have been read.
+         *
+         * @return the number of bytes of the file that have been read.
+         */
+        long getOffset() {
+            return offset;
+        }
+    }
+
+    /**
+     * Loads every flight in the specified file whose source and destination
+     * cities are known, appending them to the specified table. The first line
+     * of the file is treated as a header.
+     *
+     * @param file the flights CSV file.
+     * @param cities the cities that flights may refer to.
+     * @param flights the table to append the flights to.
+     * @return how much of the file was read.
+     * @throws IOException if the file cannot be read.
+     */
+    static Position load(final File file, final CityTable cities, final FlightTable flights) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            parse(channel, nextLineStart(channel, 0), size, cities, flights);
+            return getPosition(file, channel, size);
+        }
+    }
+
+    /**
+     * Returns the position at the current end of the specified file, as if
+     * the whole file had been read.
+     *
+     * @param file the flights CSV file.
+     * @return the position at the end of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    static Position getPosition(final File file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return getPosition(file, channel, channel.size());
+        }
+    }
+
+    /**
+     * Loads the complete lines appended to the specified file since it was
+     * last read, appending the flights whose source and destination cities
+     * are known to the specified table. A trailing line without a newline is
+     * left to be read once it has been completed.
+     * <p>
+     * If the file has been replaced rather than appended to, nothing is read
+     * and null is returned. The flights already in the table came from the
+     * old file, so reading the new one on top of them would duplicate any
+     * flights the two have in common.
+     *
+     * @param file the flights CSV file.
+     * @param position how much of the file has already been read.
+     * @param cities the cities that flights may refer to.
+     * @param flights the table to append the flights to.
+     * @return how much of the file has now been read, or null if the file
+     * has been replaced.
+     * @throws IOException if the file cannot be read.
+     */
+    static Position tail(final File file, final Position position, final CityTable cities, final FlightTable flights) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (!isSameFile(file, channel, position)) {
+                return null;
+            }
+            final long end = previousLineEnd(channel, position.offset, channel.size());
+            if (end <= position.offset) {
+                return position;
+            }
+            parse(channel, position.offset, end, cities, flights);
+            return getPosition(file, channel, end);
+        }
+    }
+
+    private static Position getPosition(final File file, final FileChannel channel, final long offset) throws IOException {
+        final long tailStart = offset - Math.min(offset, TAIL_CHECK_SIZE);
+        return new Position(offset, getFileKey(file), readBytes(channel, tailStart, offset));
+    }
+
+    /**
+     * Returns true if the file is at least as long as the position and still
+     * holds the bytes that were read just before it, under the same file key.
+     */
+    private static boolean isSameFile(final File file, final FileChannel channel, final Position position) throws IOException {
+        if (channel.size() < position.offset) {
+            return false;
+        }
+        final Object fileKey = getFileKey(file);
+        if (fileKey != null && position.fileKey != null && !fileKey.equals(position.fileKey)) {
+            return false;
+        }
+        return Arrays.equals(position.tail, readBytes(channel, position.offset - position.tail.length, position.offset));
+    }
+
+    private static Object getFileKey(final File file) throws IOException {
+        return Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+    }
+
+    /**
+     * Reads the bytes between the specified positions, stopping early if the
+     * end of the file is reached.
+     */
+    private static byte[] readBytes(final FileChannel channel, final long start, final long end) throws IOException {
+        final ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, start + bytes.position()) <= 0) {
+                return Arrays.copyOf(bytes.array(), bytes.position());
+            }
+        }
+        return bytes.array();
+    }
+
+    private static void parse(final FileChannel channel, final long start, final long end, final CityTable cities, final FlightTable flights) throws IOException {
+        try {
+            final long[] boundaries = findChunkBoundaries(channel, start, end);
+            final List<FlightTable> chunks = ForkJoinPool.commonPool().invoke(new ParseTask(channel, cities, boundaries, 0, boundaries.length - 1));
+            for (final FlightTable chunk : chunks) {
+                flights.addAll(chunk);
+            }
+        } catch (final UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Splits a range of the file into roughly equal chunks for the available
+     * parallelism, moving each split point forward to just after the next
+     * newline.
+     */
+    private static long[] findChunkBoundaries(final FileChannel channel, final long start, final long end) throws IOException {
+        final long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, (end - start) / (ForkJoinPool.getCommonPoolParallelism() * 4L)));
+        final List<Long> boundaries = new ArrayList<>();
+        boundaries.add(start);
+        long boundary = start;
+        while (boundary < end) {
+            boundary = boundary + chunkSize >= end ? end : Math.min(end, nextLineStart(channel, boundary + chunkSize));
+            boundaries.add(boundary);
+        }
+        final long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the position just after the first newline at or after the
+     * specified position, or the size of the file if there is none.
+     */
+    private static long nextLineStart(final FileChannel channel, final long position) throws IOException {
+        final ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        long offset = position;
+        while (true) {
+            scan.clear();
+            final int read = channel.read(scan, offset);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * Returns the position just after the last newline before the specified
+     * end position, or the start position if there is none.
+     */
+    private static long previousLineEnd(final FileChannel channel, final long start, final long end) throws IOException {
+        final ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        long offset = end;
+        while (offset > start) {
+            final int length = (int) Math.min(BOUNDARY_SCAN_SIZE, offset - start);
+            scan.clear();
+            scan.limit(length);
+            int read = 0;
+            while (read < length) {
+                final int count = channel.read(scan, offset - length + read);
+                if (count <= 0) {
+                    return start;
+                }
+                read += count;
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                if (scan.get(i) == '\n') {
+                    return offset - length + i + 1;
+                }
+            }
+            offset -= length;
+        }
+        return start;
+    }
+
+    /**
+     * Parses a range of chunks, splitting the range in half until it covers a
+     * single chunk.
+     */
+    private static final class ParseTask extends RecursiveTask<List<FlightTable>> {
+
+        private final FileChannel channel;
+        private final CityTable cities;
+        private final long[] boundaries;
+        private final int firstChunk;
+        private final int lastChunk;
+
+        private ParseTask(final FileChannel channel, final CityTable cities, final long[] boundaries, final int firstChunk, final int lastChunk) {
+            this.channel = channel;
+            this.cities = cities;
+            this.boundaries = boundaries;
+            this.firstChunk = firstChunk;
+            this.lastChunk = lastChunk;
+        }
+
+        @Override
+        protected List<FlightTable> compute() {
+            if (lastChunk - firstChunk <= 1) {
+                final List<FlightTable> result = new ArrayList<>(1);
+                if (lastChunk > firstChunk) {
+                    result.add(parseChunk(boundaries[firstChunk], boundaries[lastChunk]));
+                }
+                return result;
+            }
+            final int middle = (firstChunk + lastChunk) >>> 1;
+            final ParseTask right = new ParseTask(channel, cities, boundaries, middle, lastChunk);
+            right.fork();
+            final List<FlightTable> result = new ParseTask(channel, cities, boundaries, firstChunk, middle).compute();
+            result.addAll(right.join());
+            return result;
+        }
+
+        private FlightTable parseChunk(final long start, final long end) {
+            final FlightTable chunk = new FlightTable((int) Math.min(Integer.MAX_VALUE, (end - start) / ESTIMATED_BYTES_PER_FLIGHT + 1));
+            try {
+                final CsvTokenizer in = new CsvTokenizer(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+                while (in.nextRecord()) {
+                    final City fromCity = in.nextCity(cities);
+                    final City toCity = in.nextCity(cities);
+                    final long departureTime = in.nextLong();
+                    final int passengerCount = in.nextInt();
+                    final String airline = in.nextPooledString();
+
+                    if (fromCity != null && toCity != null) {
+                        chunk.add(fromCity.getId(), toCity.getId(), departureTime, passengerCount, airline);
+                    }
+                }
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            return chunk;
+        }
+    }
+}
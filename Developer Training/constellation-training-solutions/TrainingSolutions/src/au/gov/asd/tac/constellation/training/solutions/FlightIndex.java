@@ -0,0 +1,313 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.Flight;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Flight Index.
+ * <p>
+ * Holds the rows of a {@link FlightTable} arriving at or departing from each
+ * city, sorted by departure time, so that a query for a city and a departure
+ * time range can be answered with two binary searches rather than a scan of
+ * every flight.
+ */
+final class FlightIndex {
+
+    private static final int[] NO_ROWS = new int[0];
+    private static final long[] NO_TIMES = new long[0];
+
+    private final FlightTable table;
+    private final int[][] rowsByCity;
+    private final long[][] timesByCity;
+
+    private FlightIndex(final FlightTable table, final int[][] rowsByCity, final long[][] timesByCity) {
+        this.table = table;
+        this.rowsByCity = rowsByCity;
+        this.timesByCity = timesByCity;
+    }
+
+    /**
+     * Builds an index over every row of the specified table.
+     *
+     * @param table the table to index.
+     * @param cityCount the number of city ids that may appear in the table.
+     * @return an index over the specified table.
+     */
+    static FlightIndex build(final FlightTable table, final int cityCount) {
+        final int[] degrees = new int[cityCount];
+        for (int row = 0; row < table.size(); row++) {
+            degrees[table.getSourceId(row)]++;
+            if (table.getDestinationId(row) != table.getSourceId(row)) {
+                degrees[table.getDestinationId(row)]++;
+            }
+        }
+
+        final int[][] rowsByCity = new int[cityCount][];
+        final long[][] timesByCity = new long[cityCount][];
+        for (int cityId = 0; cityId < cityCount; cityId++) {
+            rowsByCity[cityId] = degrees[cityId] == 0 ? NO_ROWS : new int[degrees[cityId]];
+            timesByCity[cityId] = degrees[cityId] == 0 ? NO_TIMES : new long[degrees[cityId]];
+            degrees[cityId] = 0;
+        }
+
+        for (int row = 0; row < table.size(); row++) {
+            final long departureTime = table.getDepartureTime(row);
+            final int sourceId = table.getSourceId(row);
+            rowsByCity[sourceId][degrees[sourceId]] = row;
+            timesByCity[sourceId][degrees[sourceId]++] = departureTime;
+            final int destinationId = table.getDestinationId(row);
+            if (destinationId != sourceId) {
+                rowsByCity[destinationId][degrees[destinationId]] = row;
+                timesByCity[destinationId][degrees[destinationId]++] = departureTime;
+            }
+        }
+
+        for (int cityId = 0; cityId < cityCount; cityId++) {
+            sort(timesByCity[cityId], rowsByCity[cityId], 0, rowsByCity[cityId].length - 1);
+        }
+
+        return new FlightIndex(table, rowsByCity, timesByCity);
+    }
+
+    /**
+     * Returns an index that also covers the rows of the table from the
+     * specified row onwards. Only the cities with new flights are copied, so
+     * this index, and any lists it has returned, are left unchanged.
+     *
+     * @param firstRow the first row that is not yet indexed.
+     * @param cityCount the number of city ids that may appear in the table.
+     * @return an index over every row of the table.
+     */
+    FlightIndex append(final int firstRow, final int cityCount) {
+        final int lastRow = table.size();
+        final int[] added = new int[cityCount];
+        for (int row = firstRow; row < lastRow; row++) {
+            added[table.getSourceId(row)]++;
+            if (table.getDestinationId(row) != table.getSourceId(row)) {
+                added[table.getDestinationId(row)]++;
+            }
+        }
+
+        final int[][] newRowsByCity = Arrays.copyOf(rowsByCity, cityCount);
+        final long[][] newTimesByCity = Arrays.copyOf(timesByCity, cityCount);
+        final int[] degrees = new int[cityCount];
+        for (int cityId = 0; cityId < cityCount; cityId++) {
+            final int[] rows = newRowsByCity[cityId] == null ? NO_ROWS : newRowsByCity[cityId];
+            final long[] times = newTimesByCity[cityId] == null ? NO_TIMES : newTimesByCity[cityId];
+            degrees[cityId] = rows.length;
+            newRowsByCity[cityId] = added[cityId] == 0 ? rows : Arrays.copyOf(rows, rows.length + added[cityId]);
+            newTimesByCity[cityId] = added[cityId] == 0 ? times : Arrays.copyOf(times, times.length + added[cityId]);
+        }
+
+        for (int row = firstRow; row < lastRow; row++) {
+            final long departureTime = table.getDepartureTime(row);
+            final int sourceId = table.getSourceId(row);
+            newRowsByCity[sourceId][degrees[sourceId]] = row;
+            newTimesByCity[sourceId][degrees[sourceId]++] = departureTime;
+            final int destinationId = table.getDestinationId(row);
+            if (destinationId != sourceId) {
+                newRowsByCity[destinationId][degrees[destinationId]] = row;
+                newTimesByCity[destinationId][degrees[destinationId]++] = departureTime;
+            }
+        }
+
+        for (int cityId = 0; cityId < cityCount; cityId++) {
+            if (added[cityId] > 0) {
+                final long[] times = newTimesByCity[cityId];
+                final int oldLength = times.length - added[cityId];
+                sort(times, newRowsByCity[cityId], oldLength, times.length - 1);
+                // A feed usually appends later flights, in which case the new
+                // rows already follow the old ones.
+                if (oldLength > 0 && times[oldLength - 1] > times[oldLength]) {
+                    sort(times, newRowsByCity[cityId], 0, times.length - 1);
+                }
+            }
+        }
+
+        return new FlightIndex(table, newRowsByCity, newTimesByCity);
+    }
+
+    /**
+     * Returns all flights arriving at or departing from the specified city,
+     * ordered by departure time.
+     *
+     * @param city the city.
+     * @return all flights arriving at or departing from the specified city.
+     */
+    List<Flight> getFlights(final City city) {
+        final int cityId = city.getId();
+        if (cityId < 0 || cityId >= rowsByCity.length) {
+            return Collections.emptyList();
+        }
+        return new FlightSlice(rowsByCity[cityId], 0, rowsByCity[cityId].length);
+    }
+
+    /**
+     * Returns the flights arriving at or departing from the specified city with
+     * a departure time within the specified (inclusive) range, ordered by
+     * departure time.
+     *
+     * @param city the city.
+     * @param startTime the start of the departure time range.
+     * @param endTime the end of the departure time range.
+     * @return the flights for the city within the specified range.
+     */
+    List<Flight> getFlights(final City city, final long startTime, final long endTime) {
+        final int cityId = city.getId();
+        if (cityId < 0 || cityId >= rowsByCity.length || startTime > endTime) {
+            return Collections.emptyList();
+        }
+        final long[] departureTimes = timesByCity[cityId];
+        final int from = firstDepartingAtOrAfter(departureTimes, startTime);
+        final int to = firstDepartingAfter(departureTimes, endTime);
+        return new FlightSlice(rowsByCity[cityId], from, Math.max(from, to));
+    }
+
+    private static int firstDepartingAtOrAfter(final long[] departureTimes, final long time) {
+        int low = 0;
+        int high = departureTimes.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (departureTimes[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int firstDepartingAfter(final long[] departureTimes, final long time) {
+        int low = 0;
+        int high = departureTimes.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (departureTimes[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the first count rows ordered by departure time, with flights
+     * departing at the same time in row order.
+     *
+     * @param departureTimes the departure time of each row.
+     * @param count the number of rows to sort.
+     * @return the rows ordered by departure time.
+     */
+    static int[] sortByDepartureTime(final long[] departureTimes, final int count) {
+        final long[] times = Arrays.copyOf(departureTimes, count);
+        final int[] rows = new int[count];
+        boolean sorted = true;
+        for (int row = 0; row < count; row++) {
+            rows[row] = row;
+            sorted &= row == 0 || times[row - 1] <= times[row];
+        }
+        // A feed written as flights depart needs no sort, but Flights.csv and
+        // any file merged from several feeds are not in departure order.
+        if (!sorted) {
+            sort(times, rows, 0, count - 1);
+        }
+        return rows;
+    }
+
+    /**
+     * Sorts rows by departure time, breaking ties by row so that flights
+     * departing at the same time stay in the order they were loaded.
+     */
+    static void sort(final long[] times, final int[] rows, int low, int high) {
+        while (high - low > 16) {
+            final int mid = (low + high) >>> 1;
+            final long pivotTime = times[mid];
+            final int pivotRow = rows[mid];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (times[i] < pivotTime || (times[i] == pivotTime && rows[i] < pivotRow)) {
+                    i++;
+                }
+                while (times[j] > pivotTime || (times[j] == pivotTime && rows[j] > pivotRow)) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(times, rows, i++, j--);
+                }
+            }
+            if (j - low < high - i) {
+                sort(times, rows, low, j);
+                low = i;
+            } else {
+                sort(times, rows, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && (times[j - 1] > times[j] || (times[j - 1] == times[j] && rows[j - 1] > rows[j])); j--) {
+                swap(times, rows, j - 1, j);
+            }
+        }
+    }
+
+    private static void swap(final long[] times, final int[] rows, final int i, final int j) {
+        final long time = times[i];
+        times[i] = times[j];
+        times[j] = time;
+        final int row = rows[i];
+        rows[i] = rows[j];
+        rows[j] = row;
+    }
+
+    /**
+     * A read-only list of Flight views over a contiguous range of a city's
+     * rows.
+     */
+    private final class FlightSlice extends AbstractList<Flight> implements RandomAccess {
+
+        private final int[] rows;
+        private final int from;
+        private final int to;
+
+        private FlightSlice(final int[] rows, final int from, final int to) {
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Flight get(final int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Index " + index + " is outside a list of " + (to - from) + " flights");
+            }
+            return table.getFlight(rows[from + index]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.Flight;
+import java.util.EventListener;
+import java.util.List;
+
+/**
+ * Flight Listener.
+ * <p>
+ * Notified when flights are appended to the flights held by OutbreakUtilities
+ * while the flight feed is being watched. Notifications are delivered on the
+ * thread that loads the flights, so a listener that updates a view should
+ * hand the work over to the view's own thread.
+ */
+public interface FlightListener extends EventListener {
+
+    /**
+     * Called after flights have been appended and indexed, so they are already
+     * returned by the OutbreakUtilities flight queries.
+     *
+     * @param flights the flights that were appended, in the order they were
+     * read.
+     */
+    void flightsAdded(List<Flight> flights);
+}
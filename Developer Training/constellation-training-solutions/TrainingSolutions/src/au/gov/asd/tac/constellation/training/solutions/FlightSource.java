@@ -0,0 +1,121 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Flight Source.
+ * <p>
+ * A provider of flight data, registered with
+ * {@code @ServiceProvider(service = FlightSource.class)}. OutbreakUtilities
+ * loads its flights from the first available source in the default lookup, so
+ * a source with a lower position takes precedence over the sources shipped
+ * with this module.
+ */
+public interface FlightSource {
+
+    /**
+     * Returns a name for this source suitable for display to the user.
+     *
+     * @return a name for this source.
+     */
+    String getName();
+
+    /**
+     * Returns true if this source currently has flight data to read.
+     *
+     * @return true if this source currently has flight data to read.
+     */
+    boolean isAvailable();
+
+    /**
+     * Returns the files this source reads. The size and modification time of
+     * these files are used to decide whether previously loaded flights are
+     * still current, so a source that does not read from files should return
+     * an empty list.
+     *
+     * @return the files this source reads.
+     */
+    List<File> getFiles();
+
+    /**
+     * Opens a reader over the flights of this source. Flights should be read
+     * as the reader advances rather than all at once.
+     *
+     * @return a reader over the flights of this source.
+     * @throws IOException if the source cannot be opened.
+     */
+    Reader open() throws IOException;
+
+    /**
+     * A forward-only cursor over the flights of a source. The getters describe
+     * the flight most recently returned by {@link #next()}.
+     */
+    interface Reader extends Closeable {
+
+        /**
+         * Advances to the next flight.
+         *
+         * @return true if there is another flight, or false if the source has
+         * been exhausted.
+         * @throws IOException if the source cannot be read.
+         */
+        boolean next() throws IOException;
+
+        /**
+         * Returns the city the current flight departs from.
+         *
+         * @return the city the current flight departs from, or null if the
+         * city is unknown.
+         */
+        City getSource();
+
+        /**
+         * Returns the city the current flight arrives in.
+         *
+         * @return the city the current flight arrives in, or null if the city
+         * is unknown.
+         */
+        City getDestination();
+
+        /**
+         * Returns the departure time of the current flight in milliseconds
+         * since the epoch.
+         *
+         * @return the departure time of the current flight.
+         */
+        long getDepartureTime();
+
+        /**
+         * Returns the number of passengers on the current flight.
+         *
+         * @return the number of passengers on the current flight.
+         */
+        int getPassengers();
+
+        /**
+         * Returns the airline and number of the current flight.
+         *
+         * @return the airline and number of the current flight.
+         */
+        String getAirline();
+    }
+}
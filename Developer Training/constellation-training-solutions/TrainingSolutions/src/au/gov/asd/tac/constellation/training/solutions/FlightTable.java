@@ -0,0 +1,336 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.Flight;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Flight Table.
+ * <p>
+ * A column oriented store of flights. Each flight is a row index into a set of
+ * primitive arrays holding its departure time, source and destination city ids
+ * and passenger count, with the airline dictionary encoded as an int id. Flight
+ * instances are created on demand as lightweight views over a row.
+ * <p>
+ * Rows may be appended by a single thread while other threads read the table.
+ * The columns and size are volatile and a row is written before the size is
+ * increased to include it, so a reader always sees complete rows.
+ */
+public final class FlightTable {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private volatile long[] departureTimes;
+    private volatile int[] sources;
+    private volatile int[] destinations;
+    private volatile int[] passengers;
+    private volatile int[] airlines;
+    private volatile int size = 0;
+
+    private volatile String[] airlineNames = new String[DEFAULT_CAPACITY];
+    private volatile int airlineCount = 0;
+    private final Map<String, Integer> airlineIds = new HashMap<>();
+
+    public FlightTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public FlightTable(final int capacity) {
+        final int initialCapacity = Math.max(capacity, 1);
+        departureTimes = new long[initialCapacity];
+        sources = new int[initialCapacity];
+        destinations = new int[initialCapacity];
+        passengers = new int[initialCapacity];
+        airlines = new int[initialCapacity];
+    }
+
+    /**
+     * Appends a flight to the end of the table.
+     *
+     * @param sourceId the id of the city the flight departs from.
+     * @param destinationId the id of the city the flight arrives in.
+     * @param departureTime the departure time in milliseconds since the epoch.
+     * @param passengerCount the number of passengers on the flight.
+     * @param airline the airline and number of the flight.
+     * @return the row of the new flight.
+     */
+    int add(final int sourceId, final int destinationId, final long departureTime, final int passengerCount, final String airline) {
+        return addEncoded(sourceId, destinationId, departureTime, passengerCount, encodeAirline(airline));
+    }
+
+    private int addEncoded(final int sourceId, final int destinationId, final long departureTime, final int passengerCount, final int airlineId) {
+        final int row = size;
+        if (row == departureTimes.length) {
+            grow(row + 1);
+        }
+        departureTimes[row] = departureTime;
+        sources[row] = sourceId;
+        destinations[row] = destinationId;
+        passengers[row] = passengerCount;
+        airlines[row] = airlineId;
+        size = row + 1;
+        return row;
+    }
+
+    /**
+     * Appends every row of another table to the end of this table, re-encoding
+     * its airlines into this table's dictionary.
+     *
+     * @param other the table to append.
+     */
+    void addAll(final FlightTable other) {
+        final int[] airlineMapping = new int[other.airlineCount];
+        for (int i = 0; i < airlineMapping.length; i++) {
+            airlineMapping[i] = encodeAirline(other.airlineNames[i]);
+        }
+        final int start = size;
+        final int count = other.size;
+        if (start + count > departureTimes.length) {
+            grow(start + count);
+        }
+        System.arraycopy(other.departureTimes, 0, departureTimes, start, count);
+        System.arraycopy(other.sources, 0, sources, start, count);
+        System.arraycopy(other.destinations, 0, destinations, start, count);
+        System.arraycopy(other.passengers, 0, passengers, start, count);
+        final int[] otherAirlines = other.airlines;
+        final int[] airlineColumn = airlines;
+        for (int row = 0; row < count; row++) {
+            airlineColumn[start + row] = airlineMapping[otherAirlines[row]];
+        }
+        size = start + count;
+    }
+
+    /**
+     * Appends the rows held in the specified columns to the end of this table,
+     * copying each column in bulk. The airline column holds indices into the
+     * specified names, and each name used is encoded into this table's
+     * dictionary once rather than once per row.
+     *
+     * @param departureTimeColumn the departure times, whose remaining length
+     * is the number of rows.
+     * @param sourceColumn the ids of the cities the flights depart from.
+     * @param destinationColumn the ids of the cities the flights arrive in.
+     * @param passengerColumn the number of passengers on the flights.
+     * @param airlineColumn the index of the airline of each flight in the
+     * names.
+     * @param names the names the airline column refers to.
+     */
+    void addAll(final LongBuffer departureTimeColumn, final IntBuffer sourceColumn, final IntBuffer destinationColumn, final IntBuffer passengerColumn, final IntBuffer airlineColumn, final String[] names) {
+        final int start = size;
+        final int count = departureTimeColumn.remaining();
+        if (start + count > departureTimes.length) {
+            grow(start + count);
+        }
+        departureTimeColumn.get(departureTimes, start, count);
+        sourceColumn.get(sources, start, count);
+        destinationColumn.get(destinations, start, count);
+        passengerColumn.get(passengers, start, count);
+        final int[] encodedAirlines = airlines;
+        airlineColumn.get(encodedAirlines, start, count);
+
+        final int[] airlineMapping = new int[names.length];
+        Arrays.fill(airlineMapping, -1);
+        for (int row = start; row < start + count; row++) {
+            final int name = encodedAirlines[row];
+            int airlineId = airlineMapping[name];
+            if (airlineId < 0) {
+                airlineId = encodeAirline(names[name]);
+                airlineMapping[name] = airlineId;
+            }
+            encodedAirlines[row] = airlineId;
+        }
+        size = start + count;
+    }
+
+    /**
+     * Removes every row and airline from the table.
+     */
+    void clear() {
+        size = 0;
+        airlineNames = new String[DEFAULT_CAPACITY];
+        airlineCount = 0;
+        airlineIds.clear();
+    }
+
+    private int encodeAirline(final String airline) {
+        Integer airlineId = airlineIds.get(airline);
+        if (airlineId == null) {
+            airlineId = airlineCount;
+            if (airlineId == airlineNames.length) {
+                airlineNames = Arrays.copyOf(airlineNames, airlineId * 2);
+            }
+            airlineNames[airlineId] = airline;
+            airlineCount = airlineId + 1;
+            airlineIds.put(airline, airlineId);
+        }
+        return airlineId;
+    }
+
+    private void grow(final int minCapacity) {
+        final int capacity = Math.max(minCapacity, departureTimes.length + (departureTimes.length >> 1));
+        departureTimes = Arrays.copyOf(departureTimes, capacity);
+        sources = Arrays.copyOf(sources, capacity);
+        destinations = Arrays.copyOf(destinations, capacity);
+        passengers = Arrays.copyOf(passengers, capacity);
+        airlines = Arrays.copyOf(airlines, capacity);
+    }
+
+    /**
+     * Returns the number of flights in the table.
+     *
+     * @return the number of flights in the table.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the departure time of a flight in milliseconds since the epoch.
+     *
+     * @param row the row of the flight.
+     * @return the departure time of the flight.
+     */
+    public long getDepartureTime(final int row) {
+        return departureTimes[row];
+    }
+
+    /**
+     * Returns the id of the city a flight departs from.
+     *
+     * @param row the row of the flight.
+     * @return the id of the city the flight departs from.
+     */
+    public int getSourceId(final int row) {
+        return sources[row];
+    }
+
+    /**
+     * Returns the id of the city a flight arrives in.
+     *
+     * @param row the row of the flight.
+     * @return the id of the city the flight arrives in.
+     */
+    public int getDestinationId(final int row) {
+        return destinations[row];
+    }
+
+    /**
+     * Returns the number of passengers on a flight.
+     *
+     * @param row the row of the flight.
+     * @return the number of passengers on the flight.
+     */
+    public int getPassengers(final int row) {
+        return passengers[row];
+    }
+
+    /**
+     * Returns the dictionary id of the airline of a flight.
+     *
+     * @param row the row of the flight.
+     * @return the dictionary id of the airline of the flight.
+     */
+    public int getAirlineId(final int row) {
+        return airlines[row];
+    }
+
+    /**
+     * Returns the airline and number of a flight.
+     *
+     * @param row the row of the flight.
+     * @return the airline and number of the flight.
+     */
+    public String getAirline(final int row) {
+        return airlineNames[airlines[row]];
+    }
+
+    /**
+     * Returns the airline and number with the specified dictionary id.
+     *
+     * @param airlineId the dictionary id of the airline.
+     * @return the airline and number with the specified dictionary id.
+     */
+    public String getAirlineName(final int airlineId) {
+        if (airlineId < 0 || airlineId >= airlineCount) {
+            throw new IndexOutOfBoundsException("Airline " + airlineId + " is outside a dictionary of " + airlineCount + " airlines");
+        }
+        return airlineNames[airlineId];
+    }
+
+    /**
+     * Returns the number of distinct airlines referenced by the table.
+     *
+     * @return the number of distinct airlines referenced by the table.
+     */
+    public int getAirlineCount() {
+        return airlineCount;
+    }
+
+    /**
+     * Returns the rows of the table ordered by departure time, with flights
+     * departing at the same time in row order. Rows appended after this is
+     * called are not included.
+     *
+     * @return the rows of the table ordered by departure time.
+     */
+    public int[] getRowsByDepartureTime() {
+        return FlightIndex.sortByDepartureTime(departureTimes, size);
+    }
+
+    /**
+     * Returns a Flight view over the specified row.
+     *
+     * @param row the row of the flight.
+     * @return a Flight view over the specified row.
+     */
+    public Flight getFlight(final int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " is outside a table of " + size + " flights");
+        }
+        return new Flight(this, row);
+    }
+
+    /**
+     * Returns a read-only list of Flight views over every row of the table.
+     * Views are created as they are requested rather than held by the list.
+     *
+     * @return a read-only list of Flight views over the table.
+     */
+    public List<Flight> asList() {
+        return new FlightList();
+    }
+
+    private final class FlightList extends AbstractList<Flight> implements RandomAccess {
+
+        @Override
+        public Flight get(final int index) {
+            return getFlight(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
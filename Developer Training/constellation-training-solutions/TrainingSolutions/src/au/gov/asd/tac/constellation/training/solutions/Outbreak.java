@@ -15,129 +15,600 @@
  */
 package au.gov.asd.tac.constellation.training.solutions;
 
-import java.util.Collections;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Outbreak.
+ * <p>
+ * An immutable set of disease counts. The diseases are held as a sorted array
+ * of ids from the {@link DiseaseDictionary} with a parallel array of counts,
+ * and diseases with a count of zero are never stored.
  */
 public class Outbreak implements Comparable<Outbreak> {
 
-    private final Map<String, Integer> outbreakData;
+    private static final int[] NO_DISEASES = new int[0];
+
+    private final int[] diseaseIds;
+    private final int[] counts;
+
+    // Computed on first use. Outbreaks are shared between threads, so a race
+    // may compute these more than once. That is harmless for the int hash, as
+    // with String.hash, and for the immutable String. The array is volatile,
+    // as without it another thread could see the reference before the sorted
+    // counts written into it.
+    private volatile int[] descendingCounts;
+    private int hash;
+    private String text;
+
+    // Set once this instance becomes the canonical instance for its value in
+    // the OutbreakPool. Two different canonical instances are never equal.
+    private boolean canonical;
 
     public Outbreak() {
-        this(Collections.emptyMap());
+        this(NO_DISEASES, NO_DISEASES);
     }
 
     public Outbreak(final Map<String, Integer> outbreakData) {
-        this.outbreakData = new HashMap<>();
-        final Iterator<String> iter = outbreakData.keySet().iterator();
-        while (iter.hasNext()) {
-            final String disease = iter.next();
-            if (outbreakData.get(disease) == 0) {
-                iter.remove();
+        final Map<Integer, Integer> countsById = new HashMap<>();
+        outbreakData.forEach((disease, count) -> {
+            if (count != 0) {
+                countsById.put(DiseaseDictionary.getId(disease), count);
             }
+        });
+        final int[] ids = new int[countsById.size()];
+        int i = 0;
+        for (final int id : countsById.keySet()) {
+            ids[i++] = id;
         }
-        this.outbreakData.putAll(outbreakData);
+        Arrays.sort(ids);
+        final int[] values = new int[ids.length];
+        for (i = 0; i < ids.length; i++) {
+            values[i] = countsById.get(ids[i]);
+        }
+        this.diseaseIds = ids;
+        this.counts = values;
+    }
+
+    /**
+     * Creates an outbreak from arrays that are already sorted by disease id
+     * and contain no zero counts. The arrays are not copied.
+     */
+    Outbreak(final int[] diseaseIds, final int[] counts) {
+        this.diseaseIds = diseaseIds;
+        this.counts = counts;
     }
 
     public Map<String, Integer> getOutbreakData() {
-        return Collections.unmodifiableMap(outbreakData);
+        return new OutbreakData();
     }
 
     public Set<String> getDiseases() {
-        return Collections.unmodifiableSet(outbreakData.keySet());
+        return new Diseases();
     }
 
     public int getNumberOfDiseases() {
-        return outbreakData.keySet().size();
+        return diseaseIds.length;
+    }
+
+    /**
+     * Returns the dictionary id of the disease at the specified index, where
+     * diseases are ordered by id.
+     *
+     * @param index the index of the disease, from 0 to
+     * {@link #getNumberOfDiseases()} - 1.
+     * @return the dictionary id of the disease.
+     */
+    int getDiseaseIdAt(final int index) {
+        return diseaseIds[index];
+    }
+
+    /**
+     * Returns the number of people affected by the disease at the specified
+     * index, where diseases are ordered by id.
+     *
+     * @param index the index of the disease, from 0 to
+     * {@link #getNumberOfDiseases()} - 1.
+     * @return the number of people affected by the disease.
+     */
+    int getCountAt(final int index) {
+        return counts[index];
     }
 
+    /**
+     * Returns the number of people affected by the specified disease.
+     *
+     * @param diseaseName the name of the disease.
+     * @return the number of people affected by the disease, or 0 if the
+     * disease is not part of this outbreak.
+     */
     public int getAffectedPopulation(final String diseaseName) {
-        return outbreakData.get(diseaseName);
+        final int index = indexOf(diseaseName);
+        return index < 0 ? 0 : counts[index];
     }
 
-    public Outbreak spreadDisease(final String diseaseName, final Integer populationAffected) {
-        final Outbreak spreadOutbreak = new Outbreak(outbreakData);
-        if (outbreakData.containsKey(diseaseName)) {
-            spreadOutbreak.outbreakData.put(diseaseName, outbreakData.get(diseaseName) + populationAffected);
-        } else {
-            spreadOutbreak.outbreakData.put(diseaseName, populationAffected);
+    private int indexOf(final Object diseaseName) {
+        if (!(diseaseName instanceof String)) {
+            return -1;
         }
-        return spreadOutbreak;
+        final int id = DiseaseDictionary.findId((String) diseaseName);
+        return id == DiseaseDictionary.UNKNOWN_DISEASE ? -1 : Arrays.binarySearch(diseaseIds, id);
+    }
+
+    public Outbreak spreadDisease(final String diseaseName, final Integer populationAffected) {
+        return withCount(DiseaseDictionary.getId(diseaseName), populationAffected, true);
     }
 
     public Outbreak treatDisease(final String diseaseName, final Integer populationAffected) {
-        final Outbreak treatedOutbreak = new Outbreak(outbreakData);
-        if (outbreakData.containsKey(diseaseName)) {
-            treatedOutbreak.outbreakData.put(diseaseName, outbreakData.get(diseaseName) - populationAffected);
-        }
-        return treatedOutbreak;
+        final int id = DiseaseDictionary.findId(diseaseName);
+        return id == DiseaseDictionary.UNKNOWN_DISEASE ? this : withCount(id, -populationAffected, false);
     }
 
     public Outbreak cureDisease(final String diseaseName) {
-        final Outbreak curedOutbreak = new Outbreak(outbreakData);
-        curedOutbreak.outbreakData.remove(diseaseName);
-        return curedOutbreak;
+        final int index = indexOf(diseaseName);
+        if (index < 0) {
+            return this;
+        }
+        return new Outbreak(remove(diseaseIds, index), remove(counts, index));
+    }
+
+    /**
+     * Returns a builder initialised with the diseases of this outbreak, so
+     * that several changes can be made with a single copy, for example
+     * {@code outbreak.edit().spread(a, n).treat(b, m).cure(c).build()}.
+     *
+     * @return a builder initialised with the diseases of this outbreak.
+     */
+    public Builder edit() {
+        return new Builder(diseaseIds, counts);
+    }
+
+    /**
+     * Returns an outbreak with the count of the specified disease changed by
+     * the specified amount, optionally adding the disease if it is not
+     * already present.
+     */
+    private Outbreak withCount(final int diseaseId, final int change, final boolean add) {
+        final int index = Arrays.binarySearch(diseaseIds, diseaseId);
+        if (index >= 0) {
+            final int count = counts[index] + change;
+            if (count == 0) {
+                return new Outbreak(remove(diseaseIds, index), remove(counts, index));
+            }
+            final int[] newCounts = counts.clone();
+            newCounts[index] = count;
+            return new Outbreak(diseaseIds, newCounts);
+        }
+        if (!add || change == 0) {
+            return this;
+        }
+        final int insertion = -index - 1;
+        return new Outbreak(insert(diseaseIds, insertion, diseaseId), insert(counts, insertion, change));
+    }
+
+    private static int[] insert(final int[] values, final int index, final int value) {
+        final int[] result = new int[values.length + 1];
+        System.arraycopy(values, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(values, index, result, index + 1, values.length - index);
+        return result;
+    }
+
+    private static int[] remove(final int[] values, final int index) {
+        if (values.length == 1) {
+            return NO_DISEASES;
+        }
+        final int[] result = new int[values.length - 1];
+        System.arraycopy(values, 0, result, 0, index);
+        System.arraycopy(values, index + 1, result, index, values.length - index - 1);
+        return result;
     }
 
     @Override
     public String toString() {
-        final StringBuilder str = new StringBuilder();
-        outbreakData.forEach((name, value) -> {
-            str.append(name).append(":").append(value).append(",");
-        });
-        if (str.length() > 1) {
-            str.replace(str.length() - 1, str.length(), "");
+        String str = text;
+        if (str == null) {
+            final StringBuilder builder = new StringBuilder(diseaseIds.length * 16);
+            for (int i = 0; i < diseaseIds.length; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(DiseaseDictionary.getName(diseaseIds[i])).append(':').append(counts[i]);
+            }
+            str = builder.toString();
+            text = str;
         }
-        return str.toString();
+        return str;
     }
 
+    /**
+     * Parses an outbreak from a comma separated list of disease:count pairs,
+     * as produced by {@link #toString()}. If a disease appears more than once
+     * the last count is used.
+     *
+     * @param s the text to parse.
+     * @return the outbreak, or null if the text is null.
+     * @throws IllegalArgumentException if the text is not a valid outbreak.
+     */
     public static Outbreak valueOf(final String s) {
         if (s == null) {
             return null;
         }
-        final Outbreak outbreak = new Outbreak();
-        if (!s.isEmpty()) {
-            final String[] diseases = s.split(",");
-            for (final String disease : diseases) {
-                final String[] nameAndValue = disease.split(":");
-                try {
-                    outbreak.outbreakData.put(nameAndValue[0], Integer.valueOf(nameAndValue[1]));
-                } catch (final ArrayIndexOutOfBoundsException | NumberFormatException ex) {
-                    throw new IllegalArgumentException("Not a valid outbreak status");
-                }
+        final Builder builder = new Builder(NO_DISEASES, NO_DISEASES);
+        final int length = s.length();
+        int position = 0;
+        while (position < length) {
+            int entryEnd = s.indexOf(',', position);
+            if (entryEnd < 0) {
+                entryEnd = length;
+            } else if (entryEnd == position && isTrailingSeparators(s, position)) {
+                break;
+            }
+            final int nameEnd = s.indexOf(':', position);
+            if (nameEnd < 0 || nameEnd >= entryEnd) {
+                throw new IllegalArgumentException("Not a valid outbreak status");
+            }
+            int countEnd = s.indexOf(':', nameEnd + 1);
+            if (countEnd < 0 || countEnd > entryEnd) {
+                countEnd = entryEnd;
+            }
+            builder.setById(DiseaseDictionary.getId(s.substring(position, nameEnd)), parseCount(s, nameEnd + 1, countEnd));
+            position = entryEnd + 1;
+        }
+        return builder.build().intern();
+    }
+
+    private static boolean isTrailingSeparators(final String s, final int from) {
+        for (int i = from; i < s.length(); i++) {
+            if (s.charAt(i) != ',') {
+                return false;
             }
         }
-        return outbreak;
+        return true;
+    }
+
+    private static int parseCount(final String s, final int start, final int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw new IllegalArgumentException("Not a valid outbreak status");
+        }
+        // Accumulate negatively so that Integer.MIN_VALUE can be parsed.
+        final int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int value = 0;
+        for (; i < end; i++) {
+            final int digit = Character.digit(s.charAt(i), 10);
+            if (digit < 0 || value < limit / 10 || value * 10 < limit + digit) {
+                throw new IllegalArgumentException("Not a valid outbreak status");
+            }
+            value = value * 10 - digit;
+        }
+        return negative ? value : -value;
     }
 
     @Override
     public boolean equals(Object obj) {
-        return obj instanceof Outbreak ? outbreakData.equals(((Outbreak) obj).outbreakData) : false;
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Outbreak)) {
+            return false;
+        }
+        final Outbreak other = (Outbreak) obj;
+        if (canonical && other.canonical) {
+            return false;
+        }
+        return Arrays.equals(diseaseIds, other.diseaseIds) && Arrays.equals(counts, other.counts);
+    }
+
+    /**
+     * Returns the canonical instance of this outbreak, so that equal
+     * outbreaks can share one instance and be compared by identity. Like
+     * {@link String#intern()}, a canonical instance is only kept while it is
+     * in use.
+     *
+     * @return the canonical outbreak equal to this outbreak.
+     */
+    public Outbreak intern() {
+        return canonical ? this : OutbreakPool.intern(this);
+    }
+
+    void setCanonical() {
+        canonical = true;
     }
 
     @Override
     public int hashCode() {
-        return outbreakData.hashCode();
+        int h = hash;
+        if (h == 0 && diseaseIds.length > 0) {
+            h = 31 * Arrays.hashCode(diseaseIds) + Arrays.hashCode(counts);
+            hash = h;
+        }
+        return h;
     }
 
+    /**
+     * Compares outbreaks by their counts sorted from largest to smallest, so
+     * that the outbreak with the largest single count comes last. Where one
+     * set of counts is a prefix of the other, the outbreak with more diseases
+     * is greater.
+     */
     @Override
     public int compareTo(final Outbreak o) {
-        final Iterator<Integer> numsInfected = outbreakData.values().stream().sorted(Collections.reverseOrder()).collect(Collectors.toList()).iterator();
-        final Iterator<Integer> oNumsInfected = o.outbreakData.values().stream().sorted(Collections.reverseOrder()).collect(Collectors.toList()).iterator();
+        final int[] numsInfected = getDescendingCounts();
+        final int[] oNumsInfected = o.getDescendingCounts();
+        final int length = Math.min(numsInfected.length, oNumsInfected.length);
+        for (int i = 0; i < length; i++) {
+            if (numsInfected[i] != oNumsInfected[i]) {
+                return Integer.compare(numsInfected[i], oNumsInfected[i]);
+            }
+        }
+        return Integer.compare(numsInfected.length, oNumsInfected.length);
+    }
+
+    private int[] getDescendingCounts() {
+        int[] sorted = descendingCounts;
+        if (sorted == null) {
+            sorted = counts.clone();
+            Arrays.sort(sorted);
+            for (int i = 0, j = sorted.length - 1; i < j; i++, j--) {
+                final int count = sorted[i];
+                sorted[i] = sorted[j];
+                sorted[j] = count;
+            }
+            descendingCounts = sorted;
+        }
+        return sorted;
+    }
+
+    /**
+     * A mutable set of disease counts used to build an Outbreak. Counts may
+     * pass through zero while editing; diseases left with a count of zero are
+     * dropped when the outbreak is built.
+     */
+    public static final class Builder {
+
+        private int[] diseaseIds;
+        private int[] counts;
+        private int size;
+
+        private Builder(final int[] diseaseIds, final int[] counts) {
+            this.diseaseIds = Arrays.copyOf(diseaseIds, Math.max(4, diseaseIds.length + 2));
+            this.counts = Arrays.copyOf(counts, this.diseaseIds.length);
+            this.size = diseaseIds.length;
+        }
+
+        /**
+         * Adds people affected by the specified disease.
+         *
+         * @param diseaseName the name of the disease.
+         * @param populationAffected the number of newly affected people.
+         * @return this builder.
+         */
+        public Builder spread(final String diseaseName, final int populationAffected) {
+            final int index = findOrAdd(DiseaseDictionary.getId(diseaseName));
+            counts[index] += populationAffected;
+            return this;
+        }
+
+        /**
+         * Adds people affected by the specified disease, limiting the total
+         * affected by that disease to the specified maximum.
+         *
+         * @param diseaseName the name of the disease.
+         * @param populationAffected the number of newly affected people.
+         * @param maximum the most people that can be affected.
+         * @return this builder.
+         */
+        public Builder spread(final String diseaseName, final int populationAffected, final int maximum) {
+            return spreadById(DiseaseDictionary.getId(diseaseName), populationAffected, maximum);
+        }
+
+        Builder setById(final int diseaseId, final int populationAffected) {
+            // Find the index first, as adding the disease may replace counts.
+            final int index = findOrAdd(diseaseId);
+            counts[index] = populationAffected;
+            return this;
+        }
+
+        int getCountById(final int diseaseId) {
+            final int index = find(diseaseId);
+            return index < 0 ? 0 : counts[index];
+        }
+
+        Builder spreadById(final int diseaseId, final int populationAffected, final int maximum) {
+            final int index = findOrAdd(diseaseId);
+            counts[index] = Math.min(counts[index] + populationAffected, maximum);
+            return this;
+        }
+
+        /**
+         * Removes people affected by the specified disease, if it is present.
+         *
+         * @param diseaseName the name of the disease.
+         * @param populationTreated the number of people treated.
+         * @return this builder.
+         */
+        public Builder treat(final String diseaseName, final int populationTreated) {
+            final int index = find(DiseaseDictionary.findId(diseaseName));
+            if (index >= 0) {
+                counts[index] -= populationTreated;
+            }
+            return this;
+        }
+
+        /**
+         * Removes the specified disease entirely.
+         *
+         * @param diseaseName the name of the disease.
+         * @return this builder.
+         */
+        public Builder cure(final String diseaseName) {
+            final int index = find(DiseaseDictionary.findId(diseaseName));
+            if (index >= 0) {
+                counts[index] = 0;
+            }
+            return this;
+        }
+
+        /**
+         * Returns the number of people currently affected by the specified
+         * disease in this builder.
+         *
+         * @param diseaseName the name of the disease.
+         * @return the number of people affected, or 0 if the disease is not
+         * present.
+         */
+        public int getAffectedPopulation(final String diseaseName) {
+            final int index = find(DiseaseDictionary.findId(diseaseName));
+            return index < 0 ? 0 : counts[index];
+        }
+
+        private int find(final int diseaseId) {
+            return diseaseId == DiseaseDictionary.UNKNOWN_DISEASE ? -1 : Arrays.binarySearch(diseaseIds, 0, size, diseaseId);
+        }
+
+        private int findOrAdd(final int diseaseId) {
+            final int index = Arrays.binarySearch(diseaseIds, 0, size, diseaseId);
+            if (index >= 0) {
+                return index;
+            }
+            final int insertion = -index - 1;
+            if (size == diseaseIds.length) {
+                diseaseIds = Arrays.copyOf(diseaseIds, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            System.arraycopy(diseaseIds, insertion, diseaseIds, insertion + 1, size - insertion);
+            System.arraycopy(counts, insertion, counts, insertion + 1, size - insertion);
+            diseaseIds[insertion] = diseaseId;
+            counts[insertion] = 0;
+            size++;
+            return insertion;
+        }
+
+        /**
+         * Builds an outbreak from the current counts.
+         *
+         * @return a new outbreak holding the current counts.
+         */
+        public Outbreak build() {
+            int nonZero = 0;
+            for (int i = 0; i < size; i++) {
+                if (counts[i] != 0) {
+                    nonZero++;
+                }
+            }
+            if (nonZero == 0) {
+                return new Outbreak();
+            }
+            final int[] builtIds = new int[nonZero];
+            final int[] builtCounts = new int[nonZero];
+            int j = 0;
+            for (int i = 0; i < size; i++) {
+                if (counts[i] != 0) {
+                    builtIds[j] = diseaseIds[i];
+                    builtCounts[j++] = counts[i];
+                }
+            }
+            return new Outbreak(builtIds, builtCounts);
+        }
+    }
+
+    /**
+     * A read-only map view of the disease names and counts.
+     */
+    private final class OutbreakData extends AbstractMap<String, Integer> {
+
+        @Override
+        public int size() {
+            return diseaseIds.length;
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public Integer get(final Object key) {
+            final int index = indexOf(key);
+            return index < 0 ? null : counts[index];
+        }
+
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Integer>>() {
+                @Override
+                public Iterator<Map.Entry<String, Integer>> iterator() {
+                    return new IndexIterator<Map.Entry<String, Integer>>() {
+                        @Override
+                        Map.Entry<String, Integer> get(final int index) {
+                            return new AbstractMap.SimpleImmutableEntry<>(DiseaseDictionary.getName(diseaseIds[index]), counts[index]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return diseaseIds.length;
+                }
+            };
+        }
+    }
+
+    /**
+     * A read-only set view of the disease names.
+     */
+    private final class Diseases extends AbstractSet<String> {
+
+        @Override
+        public boolean contains(final Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new IndexIterator<String>() {
+                @Override
+                String get(final int index) {
+                    return DiseaseDictionary.getName(diseaseIds[index]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return diseaseIds.length;
+        }
+    }
+
+    private abstract class IndexIterator<T> implements Iterator<T> {
+
+        private int next = 0;
+
+        abstract T get(int index);
+
+        @Override
+        public boolean hasNext() {
+            return next < diseaseIds.length;
+        }
 
-        while (numsInfected.hasNext() && oNumsInfected.hasNext()) {
-            final int num = numsInfected.next();
-            final int oNum = oNumsInfected.next();
-            if (num != oNum) {
-                return Integer.compare(num, oNum);
+        @Override
+        public T next() {
+            if (next >= diseaseIds.length) {
+                throw new NoSuchElementException();
             }
+            return get(next++);
         }
-        return Boolean.compare(numsInfected.hasNext(), oNumsInfected.hasNext());
     }
 }
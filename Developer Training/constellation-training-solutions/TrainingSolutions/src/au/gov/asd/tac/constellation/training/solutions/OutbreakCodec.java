@@ -0,0 +1,147 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Outbreak Codec.
+ * <p>
+ * A compact binary encoding of outbreaks. Each outbreak is written as a varint
+ * holding the number of diseases plus one, with 0 standing for a null
+ * outbreak, followed by a varint disease id and a zigzag varint count for each
+ * disease. Decoded outbreaks are interned.
+ * <p>
+ * Disease ids are only meaningful within the {@link DiseaseDictionary} of one
+ * session, so anything that persists the encoding must also persist the
+ * disease names, in id order, up to {@link DiseaseDictionary#size()}. A reader
+ * maps them back to ids with {@link #mapDiseases(String[])}.
+ */
+final class OutbreakCodec {
+
+    private OutbreakCodec() {
+    }
+
+    /**
+     * Writes an outbreak to the specified stream.
+     *
+     * @param outbreak the outbreak, which may be null.
+     * @param out the stream to write to.
+     */
+    static void write(final Outbreak outbreak, final ByteArrayOutputStream out) {
+        if (outbreak == null) {
+            out.write(0);
+            return;
+        }
+        final int diseaseCount = outbreak.getNumberOfDiseases();
+        writeVarint(diseaseCount + 1, out);
+        for (int i = 0; i < diseaseCount; i++) {
+            writeVarint(outbreak.getDiseaseIdAt(i), out);
+            writeVarint((outbreak.getCountAt(i) << 1) ^ (outbreak.getCountAt(i) >> 31), out);
+        }
+    }
+
+    /**
+     * Returns the ids in the current session of the specified disease names,
+     * indexed by the ids they were written with.
+     *
+     * @param diseaseNames the disease names in the order of their ids when
+     * the outbreaks were written.
+     * @return the current id of each disease.
+     */
+    static int[] mapDiseases(final String[] diseaseNames) {
+        final int[] diseaseIds = new int[diseaseNames.length];
+        for (int i = 0; i < diseaseNames.length; i++) {
+            diseaseIds[i] = DiseaseDictionary.getId(diseaseNames[i]);
+        }
+        return diseaseIds;
+    }
+
+    /**
+     * Reads an outbreak from the specified buffer.
+     *
+     * @param in the buffer to read from.
+     * @param diseaseIds the current id of each disease id that was written,
+     * as returned by {@link #mapDiseases(String[])}.
+     * @return the outbreak, or null if a null outbreak was written.
+     * @throws IllegalArgumentException if the buffer does not hold a valid
+     * outbreak.
+     */
+    static Outbreak read(final ByteBuffer in, final int[] diseaseIds) {
+        try {
+            final int diseaseCount = readVarint(in) - 1;
+            if (diseaseCount < 0) {
+                return null;
+            }
+            final int[] ids = new int[diseaseCount];
+            final int[] counts = new int[diseaseCount];
+            boolean sorted = true;
+            for (int i = 0; i < diseaseCount; i++) {
+                ids[i] = diseaseIds[readVarint(in)];
+                final int zigzag = readVarint(in);
+                counts[i] = (zigzag >>> 1) ^ -(zigzag & 1);
+                if (counts[i] == 0) {
+                    throw new IllegalArgumentException("Encoded outbreak holds a zero count");
+                }
+                sorted &= i == 0 || ids[i - 1] < ids[i];
+            }
+            if (!sorted) {
+                // The dictionary of this session may number the diseases in a
+                // different order to the one that wrote them.
+                sort(ids, counts);
+            }
+            return new Outbreak(ids, counts).intern();
+        } catch (final BufferUnderflowException | ArrayIndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Not a valid encoded outbreak", ex);
+        }
+    }
+
+    private static void sort(final int[] ids, final int[] counts) {
+        for (int i = 1; i < ids.length; i++) {
+            final int id = ids[i];
+            final int count = counts[i];
+            int j = i;
+            for (; j > 0 && ids[j - 1] > id; j--) {
+                ids[j] = ids[j - 1];
+                counts[j] = counts[j - 1];
+            }
+            ids[j] = id;
+            counts[j] = count;
+        }
+    }
+
+    private static void writeVarint(int value, final ByteArrayOutputStream out) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(final ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint is too long");
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Outbreak Pool.
+ * <p>
+ * Holds one canonical instance of each distinct outbreak in use. Outbreaks
+ * are only weakly referenced, so an outbreak that is no longer used anywhere
+ * else drops out of the pool. The empty outbreak is held permanently.
+ * <p>
+ * The pool is split into stripes by hash code so that threads interning
+ * different outbreaks rarely wait for each other.
+ */
+final class OutbreakPool {
+
+    private static final int STRIPES = 32;
+
+    private static final Outbreak EMPTY = new Outbreak();
+    private static final Stripe[] POOL = new Stripe[STRIPES];
+
+    static {
+        EMPTY.setCanonical();
+        for (int i = 0; i < STRIPES; i++) {
+            POOL[i] = new Stripe();
+        }
+    }
+
+    private OutbreakPool() {
+    }
+
+    /**
+     * Returns the canonical outbreak equal to the specified outbreak, making
+     * the specified outbreak canonical if there is no such outbreak yet.
+     *
+     * @param outbreak the outbreak to intern.
+     * @return the canonical outbreak.
+     */
+    static Outbreak intern(final Outbreak outbreak) {
+        if (outbreak.getNumberOfDiseases() == 0) {
+            return EMPTY;
+        }
+        final int hash = outbreak.hashCode();
+        final Stripe stripe = POOL[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        synchronized (stripe) {
+            final WeakReference<Outbreak> reference = stripe.outbreaks.get(outbreak);
+            final Outbreak existing = reference == null ? null : reference.get();
+            if (existing != null) {
+                return existing;
+            }
+            outbreak.setCanonical();
+            stripe.outbreaks.put(outbreak, new WeakReference<>(outbreak));
+            return outbreak;
+        }
+    }
+
+    private static final class Stripe {
+
+        private final Map<Outbreak, WeakReference<Outbreak>> outbreaks = new WeakHashMap<>();
+    }
+}
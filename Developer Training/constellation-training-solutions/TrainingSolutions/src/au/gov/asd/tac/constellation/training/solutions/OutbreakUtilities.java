@@ -22,10 +22,10 @@ import au.gov.asd.tac.constellation.graph.schema.analytic.concept.AnalyticConcep
 import au.gov.asd.tac.constellation.graph.schema.analytic.concept.SpatialConcept;
 import au.gov.asd.tac.constellation.graph.schema.analytic.concept.TemporalConcept;
 import au.gov.asd.tac.constellation.graph.schema.visual.concept.VisualConcept;
-import java.io.BufferedReader;
+import au.gov.asd.tac.constellation.plugins.PluginInteraction;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.time.Instant;
@@ -33,14 +33,23 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.openide.modules.InstalledFileLocator;
+import org.openide.modules.Places;
 import org.openide.util.Exceptions;
+import org.openide.util.Lookup;
+import org.openide.util.RequestProcessor;
 
 /**
  * Outbreak Utilities.
@@ -49,7 +58,11 @@ public class OutbreakUtilities {
 
     private static final Logger LOGGER = Logger.getLogger(OutbreakUtilities.class.getName());
 
-    private static final double DAILY_LOCAL_SPREAD_FACTOR = 0.01;
+    /**
+     * The fraction by which the afflicted population of each disease grows
+     * within its city each day.
+     */
+    public static final double DAILY_LOCAL_SPREAD_FACTOR = 0.01;
 
     /**
      * Causes the diseases from the specified outbreak to spread, both within
@@ -67,25 +80,112 @@ public class OutbreakUtilities {
      * @return
      */
     public static Outbreak spreadDisease(final Outbreak outbreak, final int hostPopulation, final List<Outbreak> neighboutOutbreaks, final List<Integer> neighbourPopulations, final List<Integer> neighbourDailyFlightVolumes, final int numberOfDays) {
-        final Map<String, Integer> spreadOutbreakData = new HashMap<>();
+        final Outbreak.Builder spreadOutbreak = spreadLocally(outbreak, hostPopulation, numberOfDays);
+        for (int i = 0; i < neighboutOutbreaks.size(); i++) {
+            spreadFromNeighbour(spreadOutbreak, hostPopulation, neighboutOutbreaks.get(i), neighbourPopulations.get(i), neighbourDailyFlightVolumes.get(i), numberOfDays);
+        }
+        return spreadOutbreak.build().intern();
+    }
+
+    /**
+     * Causes the diseases from the specified outbreak to spread, as
+     * {@link #spreadDisease(Outbreak, int, List, List, List, int)} does, taking
+     * the neighbours from a range of an adjacency array. This allows every
+     * city in a network to share one set of arrays.
+     *
+     * @param outbreak the outbreak to spread.
+     * @param hostPopulation the population of the host city where the outbreak
+     * is located.
+     * @param outbreaks the outbreaks of every city in the network, which may
+     * be null.
+     * @param populations the populations of every city in the network.
+     * @param neighbours the indices into outbreaks and populations of the
+     * neighbours that passengers fly in from.
+     * @param neighbourDailyFlightVolumes the number of passengers flying in
+     * from each neighbour.
+     * @param from the index in neighbours of the first neighbour of the host
+     * city.
+     * @param to the index after the last neighbour of the host city.
+     * @param numberOfDays the number of days over which to simulate the spread.
+     * @return the spread outbreak.
+     */
+    public static Outbreak spreadDisease(final Outbreak outbreak, final int hostPopulation, final Outbreak[] outbreaks, final int[] populations, final int[] neighbours, final int[] neighbourDailyFlightVolumes, final int from, final int to, final int numberOfDays) {
+        final Outbreak.Builder spreadOutbreak = spreadLocally(outbreak, hostPopulation, numberOfDays);
+        for (int i = from; i < to; i++) {
+            final Outbreak neighbourOutbreak = outbreaks[neighbours[i]];
+            if (neighbourOutbreak != null) {
+                spreadFromNeighbour(spreadOutbreak, hostPopulation, neighbourOutbreak, populations[neighbours[i]], neighbourDailyFlightVolumes[i], numberOfDays);
+            }
+        }
+        return spreadOutbreak.build().intern();
+    }
+
+    private static Outbreak.Builder spreadLocally(final Outbreak outbreak, final int hostPopulation, final int numberOfDays) {
+        final Outbreak.Builder spreadOutbreak = new Outbreak().edit();
         if (outbreak != null) {
-            outbreak.getOutbreakData().forEach((diseaseName, afflicted) -> {
-                spreadOutbreakData.put(diseaseName, (int) Math.min(Math.floor(afflicted * Math.pow(1 + DAILY_LOCAL_SPREAD_FACTOR, numberOfDays)), hostPopulation));
-            });
+            final double localGrowth = getLocalGrowth(DAILY_LOCAL_SPREAD_FACTOR, numberOfDays);
+            for (int d = 0; d < outbreak.getNumberOfDiseases(); d++) {
+                spreadOutbreak.setById(outbreak.getDiseaseIdAt(d), spreadLocally(outbreak.getCountAt(d), hostPopulation, localGrowth));
+            }
         }
-        for (int i = 0; i < neighboutOutbreaks.size(); i++) {
-            final Outbreak neighbourOutbreak = neighboutOutbreaks.get(i);
-            final double population = neighbourPopulations.get(i);
-            final double neighbourDailyFlightVolume = neighbourDailyFlightVolumes.get(i);
-            neighbourOutbreak.getOutbreakData().forEach((diseaseName, afflicted) -> {
-                spreadOutbreakData.put(diseaseName,
-                        Math.min((spreadOutbreakData.containsKey(diseaseName) ? spreadOutbreakData.get(diseaseName) : 0)
-                                + (int) Math.ceil(neighbourDailyFlightVolume * (afflicted / population) * numberOfDays), hostPopulation)
-                );
-            });
+        return spreadOutbreak;
+    }
+
+    private static void spreadFromNeighbour(final Outbreak.Builder spreadOutbreak, final int hostPopulation, final Outbreak neighbourOutbreak, final double population, final double neighbourDailyFlightVolume, final int numberOfDays) {
+        for (int d = 0; d < neighbourOutbreak.getNumberOfDiseases(); d++) {
+            final int diseaseId = neighbourOutbreak.getDiseaseIdAt(d);
+            spreadOutbreak.setById(diseaseId, spreadFromNeighbour(spreadOutbreak.getCountById(diseaseId), hostPopulation, neighbourOutbreak.getCountAt(d), population, neighbourDailyFlightVolume, numberOfDays));
         }
+    }
+
+    /**
+     * Returns the factor by which the afflicted population of a disease grows
+     * within its city over the specified number of days.
+     *
+     * @param localSpreadFactor the fraction by which the afflicted population
+     * grows each day, such as {@link #DAILY_LOCAL_SPREAD_FACTOR}.
+     * @param numberOfDays the number of days over which to simulate the spread.
+     * @return the local growth factor.
+     */
+    public static double getLocalGrowth(final double localSpreadFactor, final int numberOfDays) {
+        return Math.pow(1 + localSpreadFactor, numberOfDays);
+    }
+
+    /**
+     * Returns the number of people afflicted with one disease in a city after
+     * it has spread within that city. This is the local step of spreadDisease,
+     * for callers that keep their counts in arrays rather than outbreaks.
+     *
+     * @param afflicted the number of people afflicted in the city.
+     * @param hostPopulation the population of the city.
+     * @param localGrowth the local growth factor from
+     * {@link #getLocalGrowth(double, int)}.
+     * @return the number of people afflicted after the local spread.
+     */
+    public static int spreadLocally(final int afflicted, final int hostPopulation, final double localGrowth) {
+        return (int) Math.min(Math.floor(afflicted * localGrowth), hostPopulation);
+    }
 
-        return new Outbreak(spreadOutbreakData);
+    /**
+     * Returns the number of people afflicted with one disease in a city after
+     * passengers have flown in with it from a neighbour. This is the step of
+     * spreadDisease for each neighbour, for callers that keep their counts in
+     * arrays rather than outbreaks.
+     *
+     * @param afflicted the number of people afflicted in the city.
+     * @param hostPopulation the population of the city.
+     * @param neighbourAfflicted the number of people afflicted in the
+     * neighbour.
+     * @param neighbourPopulation the population of the neighbour.
+     * @param neighbourDailyFlightVolume the number of passengers flying in
+     * from the neighbour each day.
+     * @param numberOfDays the number of days over which to simulate the spread.
+     * @return the number of people afflicted after the passengers arrive.
+     */
+    public static int spreadFromNeighbour(final int afflicted, final int hostPopulation, final int neighbourAfflicted, final double neighbourPopulation, final double neighbourDailyFlightVolume, final int numberOfDays) {
+        // A neighbour without people cannot send anyone afflicted.
+        final double imported = neighbourPopulation > 0 ? Math.ceil(neighbourDailyFlightVolume * (neighbourAfflicted / neighbourPopulation) * numberOfDays) : 0;
+        return (int) Math.min(afflicted + imported, hostPopulation);
     }
 
     /**
@@ -97,7 +197,29 @@ public class OutbreakUtilities {
      * city exists.
      */
     public static City getCity(final String cityName) {
-        return getCities().get(cityName.toLowerCase());
+        return getCities().find(cityName);
+    }
+
+    /**
+     * Returns the City instance with the specified id or null if not such city
+     * exists.
+     *
+     * @param cityId the id of the city.
+     * @return the City instance with the specified id or null if not such city
+     * exists.
+     */
+    public static City getCity(final int cityId) {
+        return getCities().get(cityId);
+    }
+
+    /**
+     * Returns the number of cities, whose ids run from 0 up to but not
+     * including this number.
+     *
+     * @return the number of cities.
+     */
+    public static int getCityCount() {
+        return getCities().size();
     }
 
     /**
@@ -107,7 +229,7 @@ public class OutbreakUtilities {
      */
     public static List<City> getInfectedCities() {
         final List<City> infectedCities = new ArrayList<>();
-        for (final City city : getCities().values()) {
+        for (final City city : getCities().asList()) {
             if (city.getOutbreak() != null && city.getOutbreak().getNumberOfDiseases() > 0) {
                 infectedCities.add(city);
             }
@@ -117,28 +239,25 @@ public class OutbreakUtilities {
 
     /**
      * Returns a list of all flights arriving or departing from the specified
-     * city.
+     * city, ordered by departure time.
      *
      * @param cityName the name of the city.
      * @return a list of all flights arriving or departing from the specified
      * city.
      */
     public static List<Flight> getFlights(final String cityName) {
-        final List<Flight> flights = new ArrayList<>();
         final City city = getCity(cityName);
-        if (city != null) {
-            for (final Flight flight : getFlights()) {
-                if (flight.getSource() == city || flight.getDestination() == city) {
-                    flights.add(flight);
-                }
-            }
+        if (city == null) {
+            return new ArrayList<>();
         }
-        return flights;
+        getFlightTable();
+        return new ArrayList<>(flightIndex.getFlights(city));
     }
 
     /**
      * Returns a list of all Flights arriving or departing from the specified
-     * city with a departure time within the specified range.
+     * city with a departure time within the specified range, ordered by
+     * departure time.
      *
      * @param cityName the name of the city.
      * @param startTime the start of the departure time range.
@@ -147,18 +266,12 @@ public class OutbreakUtilities {
      * city with a departure time within the specified range.
      */
     public static List<Flight> getFlights(final String cityName, final long startTime, final long endTime) {
-        final List<Flight> flights = new ArrayList<>();
         final City city = getCity(cityName);
-        if (city != null) {
-            for (final Flight flight : getFlights()) {
-                if (flight.getSource() == city || flight.getDestination() == city) {
-                    if (flight.departureTime >= startTime && flight.departureTime <= endTime) {
-                        flights.add(flight);
-                    }
-                }
-            }
+        if (city == null) {
+            return new ArrayList<>();
         }
-        return flights;
+        getFlightTable();
+        return new ArrayList<>(flightIndex.getFlights(city, startTime, endTime));
     }
 
     /**
@@ -167,6 +280,7 @@ public class OutbreakUtilities {
      */
     public static class City {
 
+        private final int id;
         private final String name;
         private final String country;
         private final int population;
@@ -176,6 +290,11 @@ public class OutbreakUtilities {
         private Outbreak outbreak = null;
 
         public City(final String name, final String country, final int population, final float latitude, final float longitude) {
+            this(-1, name, country, population, latitude, longitude);
+        }
+
+        City(final int id, final String name, final String country, final int population, final float latitude, final float longitude) {
+            this.id = id;
             this.name = name;
             this.country = country;
             this.population = population;
@@ -183,6 +302,16 @@ public class OutbreakUtilities {
             this.longitude = longitude;
         }
 
+        /**
+         * Returns the id of the City, which indexes the city in the flight
+         * data, or -1 if the City was not loaded from the cities data file.
+         *
+         * @return the id of the City.
+         */
+        public int getId() {
+            return id;
+        }
+
         /**
          * Returns the name of the City.
          *
@@ -251,22 +380,16 @@ public class OutbreakUtilities {
 
     /**
      * A Flight instance represents a single flight between two cities at a
-     * specified time.
+     * specified time. It is a lightweight view over a row of a FlightTable.
      */
     public static class Flight {
 
-        private final City source;
-        private final City destination;
-        private final long departureTime;
-        private final int passengers;
-        private final String airline;
+        private final FlightTable table;
+        private final int row;
 
-        public Flight(final City source, final City destination, final long departureTime, final int passengers, final String airline) {
-            this.source = source;
-            this.destination = destination;
-            this.departureTime = departureTime;
-            this.passengers = passengers;
-            this.airline = airline;
+        Flight(final FlightTable table, final int row) {
+            this.table = table;
+            this.row = row;
         }
 
         /**
@@ -275,7 +398,7 @@ public class OutbreakUtilities {
          * @return the City the flight departs from.
          */
         public City getSource() {
-            return source;
+            return getCity(table.getSourceId(row));
         }
 
         /**
@@ -284,7 +407,7 @@ public class OutbreakUtilities {
          * @return the City the flight arrives in.
          */
         public City getDestination() {
-            return destination;
+            return getCity(table.getDestinationId(row));
         }
 
         /**
@@ -294,18 +417,28 @@ public class OutbreakUtilities {
          * @return the datetime when the Flight departs.
          */
         public String getDepartureTime() {
-            final ZonedDateTime zonedDateTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(departureTime), ZoneOffset.UTC);
+            final ZonedDateTime zonedDateTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(table.getDepartureTime(row)), ZoneOffset.UTC);
             final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS z");
             return zonedDateTime.format(formatter);
         }
 
+        /**
+         * Returns the datetime when the Flight departs, specified in
+         * milliseconds since the epoch.
+         *
+         * @return the datetime when the Flight departs.
+         */
+        public long getDepartureTimeMillis() {
+            return table.getDepartureTime(row);
+        }
+
         /**
          * Returns the number of passengers on the flight.
          *
          * @return the number of passengers on the flight.
          */
         public int getPassengers() {
-            return passengers;
+            return table.getPassengers(row);
         }
 
         /**
@@ -314,7 +447,17 @@ public class OutbreakUtilities {
          * @return the airline and number of the flight.
          */
         public String getAirline() {
-            return airline;
+            return table.getAirline(row);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Flight && ((Flight) obj).table == table && ((Flight) obj).row == row;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(table) + row;
         }
     }
 
@@ -360,95 +503,532 @@ public class OutbreakUtilities {
 
     private static final File CITIES_FILE = InstalledFileLocator.getDefault().locate("modules/ext/Cities.csv", "au.gov.asd.constellation.training.solutions", true);
     private static final File OUTBREAKS_FILE = InstalledFileLocator.getDefault().locate("modules/ext/Outbreaks.csv", "au.gov.asd.constellation.training.solutions", true);
-    private static final File FLIGHTS_FILE = InstalledFileLocator.getDefault().locate("modules/ext/Flights.csv", "au.gov.asd.constellation.training.solutions", true);
 
-    private static final Map<String, City> CITIES = new HashMap<>();
-    private static final List<Flight> FLIGHTS = new ArrayList<>();
+    private static final String SNAPSHOT_FILE_NAME = "Pandemic.snapshot";
+
+    private static final CityTable CITIES = new CityTable();
+    private static final FlightTable FLIGHTS = new FlightTable();
+
+    /**
+     * The flights arriving at or departing from each city, sorted by departure
+     * time. This is built once FLIGHTS has been loaded so that per-city queries
+     * do not need to scan every flight, and replaced as flights are appended
+     * from the flight feed.
+     */
+    private static volatile FlightIndex flightIndex = null;
+
+    /**
+     * A valid snapshot of the data files, if one was found when the cities were
+     * loaded. It is kept until the flights have also been read from it.
+     */
+    private static DataSnapshot snapshot = null;
+
+    /**
+     * Whether every city and outbreak was loaded. A snapshot is only written
+     * when they were, so that a failed load is never saved as the data.
+     */
+    private static boolean citiesComplete = false;
+
+    /**
+     * The source the flights are loaded from, chosen when the cities are
+     * loaded.
+     */
+    private static FlightSource flightSource = null;
+
+    /**
+     * How much of the flights file has been read, if the flights were loaded
+     * from a plain CSV file that can be watched for new flights.
+     */
+    private static FlightFileLoader.Position flightFeedPosition = null;
+
+    private static final List<FlightListener> FLIGHT_LISTENERS = new CopyOnWriteArrayList<>();
+    private static final Object WATCH_LOCK = new Object();
+    private static RequestProcessor.Task flightFeedTask = null;
+    private static long flightFeedInterval = 0;
+
+    /**
+     * Returns the first available flight source in the default lookup, falling
+     * back to the Flights.csv file shipped with this module.
+     *
+     * @return the source to load flights from.
+     */
+    private static FlightSource findFlightSource() {
+        for (final FlightSource source : Lookup.getDefault().lookupAll(FlightSource.class)) {
+            if (source.isAvailable()) {
+                return source;
+            }
+        }
+        return new CsvFlightSource();
+    }
+
+    /**
+     * Returns the files the cities, outbreaks and flights are loaded from. A
+     * snapshot is only valid while none of these have changed.
+     *
+     * @return the files the data is loaded from.
+     */
+    private static File[] getSnapshotSources() {
+        final List<File> sources = new ArrayList<>();
+        sources.add(CITIES_FILE);
+        sources.add(OUTBREAKS_FILE);
+        sources.addAll(flightSource.getFiles());
+        return sources.toArray(new File[sources.size()]);
+    }
+
+    /**
+     * Returns the locations where a snapshot of the data files may be kept, in
+     * order of preference: next to the data files, or in the user's cache
+     * directory if the installation is not writable.
+     *
+     * @return the locations where a snapshot of the data files may be kept.
+     */
+    private static List<File> getSnapshotFiles() {
+        final List<File> snapshotFiles = new ArrayList<>();
+        if (CITIES_FILE != null) {
+            snapshotFiles.add(new File(CITIES_FILE.getParentFile(), SNAPSHOT_FILE_NAME));
+        }
+        try {
+            snapshotFiles.add(new File(Places.getCacheSubdirectory("au.gov.asd.tac.constellation.training.solutions"), SNAPSHOT_FILE_NAME));
+        } catch (final IllegalStateException ex) {
+            LOGGER.log(Level.FINE, "No cache directory is available for the data snapshot", ex);
+        }
+        return snapshotFiles;
+    }
+
+    /**
+     * Writes a snapshot of the cities and flights to the first location that
+     * allows it, so that later sessions can skip parsing the data files.
+     */
+    private static void writeSnapshot() {
+        for (final File snapshotFile : getSnapshotFiles()) {
+            try {
+                DataSnapshot.write(snapshotFile, getSnapshotSources(), CITIES, FLIGHTS);
+                return;
+            } catch (final IOException ex) {
+                LOGGER.log(Level.FINE, "Unable to write data snapshot " + snapshotFile, ex);
+            }
+        }
+        LOGGER.log(Level.INFO, "Unable to write a snapshot of the pandemic data files");
+    }
+
+    /**
+     * Deletes the current snapshot after it could not be read, so that the
+     * data files are parsed instead and a new snapshot is written in its
+     * place, rather than every later session failing on it again.
+     */
+    private static void discardSnapshot() {
+        final File snapshotFile = snapshot.getFile();
+        snapshot = null;
+        DataSnapshot.delete(snapshotFile);
+    }
 
     /**
-     * Returns a list of all available cities, lazy-loading the data file as
-     * required.
+     * Reads the cities from the first of the specified snapshot files that
+     * was written from the current versions of the source files. A snapshot
+     * that cannot be opened or read is deleted and the next one is tried.
      *
-     * @return a list of all available cities.
-     */
-    private static Map<String, City> getCities() {
-        if (CITIES.isEmpty()) {
-            try (final BufferedReader in = new BufferedReader(new FileReader(CITIES_FILE))) {
-                final String headerLine = in.readLine();
-                String line = in.readLine();
-                while (line != null) {
-                    final String[] fields = line.split(",", -1);
-                    final String country = fields[0];
-                    final String name = fields[1];
-                    final String accentCity = fields[2];
-                    final String region = fields[3];
-                    final int population = Integer.parseInt(fields[4]);
-                    final float latitude = Float.parseFloat(fields[5]);
-                    final float longitude = Float.parseFloat(fields[6]);
-                    City city = CITIES.get(name);
-                    if (city == null || city.getPopulation() < population) {
-                        city = new City(accentCity, country, population, latitude, longitude);
-                        CITIES.put(name, city);
+     * @param snapshotFiles the locations where a snapshot may be kept.
+     * @param sources the files the data is loaded from.
+     * @param cities the table of cities to populate.
+     * @return the snapshot the cities were read from, or null if none could
+     * be read, in which case the table is left empty.
+     */
+    static DataSnapshot readSnapshotCities(final List<File> snapshotFiles, final File[] sources, final CityTable cities) {
+        for (final File snapshotFile : snapshotFiles) {
+            try {
+                final DataSnapshot opened = DataSnapshot.open(snapshotFile, sources);
+                if (opened != null) {
+                    opened.readCities(cities);
+                    return opened;
+                }
+            } catch (final RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Ignoring unreadable data snapshot " + snapshotFile, ex);
+                cities.clear();
+                DataSnapshot.delete(snapshotFile);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Loading happens on a single background thread. The cities are loaded
+     * first, followed by the flights, and every caller shares the same pair of
+     * futures so the data files are only ever loaded once.
+     */
+    private static final RequestProcessor LOADER = new RequestProcessor(OutbreakUtilities.class.getName(), 1);
+    private static final Object LOAD_LOCK = new Object();
+    private static final int LOAD_STEPS = 4;
+    private static CompletableFuture<Void> citiesLoaded = null;
+    private static CompletableFuture<Void> flightsLoaded = null;
+    private static volatile int loadStep = 0;
+    private static volatile String loadMessage = "Waiting to load pandemic data";
+
+    /**
+     * Set once the cities or the flights have finished loading, so that the
+     * accessors called for every city and flight can skip LOAD_LOCK. They are
+     * only set after the matching future has completed, so a thread that sees
+     * them set also sees the loaded tables.
+     */
+    private static volatile boolean citiesReady = false;
+    private static volatile boolean flightsReady = false;
+
+    /**
+     * Starts loading the cities, outbreaks and flights in the background if
+     * they are not already loaded or loading.
+     *
+     * @return a future that completes once all of the data has been loaded.
+     */
+    public static CompletableFuture<Void> preloadData() {
+        synchronized (LOAD_LOCK) {
+            if (citiesLoaded == null) {
+                citiesLoaded = CompletableFuture.runAsync(OutbreakUtilities::loadCities, LOADER);
+                flightsLoaded = citiesLoaded.thenRunAsync(OutbreakUtilities::loadFlights, LOADER);
+            }
+            return flightsLoaded;
+        }
+    }
+
+    /**
+     * Waits for the cities, outbreaks and flights to be loaded, starting the
+     * load if necessary and reporting its progress to the specified
+     * interaction.
+     *
+     * @param interaction the interaction to report progress to.
+     * @throws InterruptedException if the wait is interrupted or cancelled.
+     */
+    public static void awaitData(final PluginInteraction interaction) throws InterruptedException {
+        final CompletableFuture<Void> loaded = preloadData();
+        while (!loaded.isDone()) {
+            interaction.setProgress(loadStep, LOAD_STEPS, loadMessage, true);
+            try {
+                loaded.get(100, TimeUnit.MILLISECONDS);
+            } catch (final TimeoutException ex) {
+                // Still loading, so report progress again.
+            } catch (final ExecutionException ex) {
+                // The loader has already reported its failure.
+                break;
+            }
+        }
+    }
+
+    private static void await(final CompletableFuture<Void> loaded) {
+        try {
+            loaded.join();
+        } catch (final CompletionException | CancellationException ex) {
+            // The loader has already reported its failure.
+        }
+    }
+
+    private static void setLoadProgress(final int step, final String message) {
+        loadStep = step;
+        loadMessage = message;
+    }
+
+    /**
+     * Returns the table of all available cities, waiting for the data files to
+     * be loaded as required.
+     *
+     * @return the table of all available cities.
+     */
+    static CityTable getCities() {
+        if (!citiesReady) {
+            preloadData();
+            await(citiesLoaded);
+            citiesReady = true;
+        }
+        return CITIES;
+    }
+
+    private static void loadCities() {
+        citiesComplete = false;
+        try {
+            setLoadProgress(0, "Loading cities");
+            flightSource = findFlightSource();
+            // Measured before the snapshot is checked, so that if the snapshot
+            // is valid this is exactly the length it was written from.
+            flightFeedPosition = null;
+            if (flightSource instanceof CsvFlightSource) {
+                try {
+                    flightFeedPosition = FlightFileLoader.getPosition(((CsvFlightSource) flightSource).getFile());
+                } catch (final IOException ex) {
+                    LOGGER.log(Level.FINE, "Unable to measure the flights file", ex);
+                }
+            }
+            snapshot = readSnapshotCities(getSnapshotFiles(), getSnapshotSources(), CITIES);
+            if (snapshot != null) {
+                citiesComplete = true;
+                return;
+            }
+
+            boolean complete = true;
+            try (final CsvTokenizer in = new CsvTokenizer(new FileInputStream(CITIES_FILE))) {
+                // Skip the header line.
+                in.nextRecord();
+                while (in.nextRecord()) {
+                    final String country = in.nextPooledString();
+                    final String name = in.nextString();
+                    final String accentCity = in.nextString();
+                    // Skip the region.
+                    in.skipField();
+                    final int population = in.nextInt();
+                    final float latitude = in.nextFloat();
+                    final float longitude = in.nextFloat();
+                    final City city = CITIES.find(name);
+                    if (city == null) {
+                        CITIES.add(name, new City(CITIES.size(), accentCity, country, population, latitude, longitude));
+                    } else if (city.getPopulation() < population) {
+                        CITIES.replace(new City(city.getId(), accentCity, country, population, latitude, longitude));
                     }
-                    line = in.readLine();
                 }
             } catch (final IOException ex) {
                 Exceptions.printStackTrace(ex);
+                complete = false;
             }
 
-            try (final BufferedReader in = new BufferedReader(new FileReader(OUTBREAKS_FILE))) {
-                final String headerLine = in.readLine();
-                String line = in.readLine();
-                while (line != null) {
-                    final String[] fields = line.split(",", -1);
-                    final String cityName = fields[0];
-                    final String infection = fields[1];
-                    final int count = Integer.parseInt(fields[2]);
-                    final City city = getCity(cityName);
+            setLoadProgress(1, "Loading outbreaks");
+            try (final CsvTokenizer in = new CsvTokenizer(new FileInputStream(OUTBREAKS_FILE))) {
+                // Skip the header line.
+                in.nextRecord();
+                while (in.nextRecord()) {
+                    final City city = in.nextCity(CITIES);
+                    final String infection = in.nextPooledString();
+                    final int count = in.nextInt();
                     if (city != null && city.getOutbreak() == null) {
-                        city.setOutbreak(new Outbreak().spreadDisease(infection, count));
+                        city.setOutbreak(new Outbreak().edit().spread(infection, count).build());
                     }
-                    line = in.readLine();
                 }
             } catch (final IOException ex) {
                 Exceptions.printStackTrace(ex);
+                complete = false;
             }
+            citiesComplete = complete;
+        } catch (final RuntimeException ex) {
+            // Leave no partially loaded cities behind.
+            Exceptions.printStackTrace(ex);
+            CITIES.clear();
+            snapshot = null;
         }
-        return CITIES;
     }
 
     /**
-     * Returns a list of all available flights, lazy loading the data file as
-     * required.
+     * Returns a list of all available flights, waiting for the data files to
+     * be loaded as required.
      *
      * @return a list of all available flights.
      */
     public static List<Flight> getFlights() {
-        if (FLIGHTS.isEmpty()) {
-            try (final BufferedReader in = new BufferedReader(new FileReader(FLIGHTS_FILE))) {
-                final String headerLine = in.readLine();
-                String line = in.readLine();
-                while (line != null) {
-                    final String[] fields = line.split(",", -1);
-                    final String fromCityName = fields[0];
-                    final String toCityName = fields[1];
-                    final long departureTime = Long.parseLong(fields[2]);
-                    final int passengerCount = Integer.parseInt(fields[3]);
-                    final String airline = fields[4];
-
-                    final City fromCity = getCity(fromCityName);
-                    final City toCity = getCity(toCityName);
-                    if (fromCity != null && toCity != null) {
-                        final Flight flight = new Flight(fromCity, toCity, departureTime, passengerCount, airline);
-                        FLIGHTS.add(flight);
+        return getFlightTable().asList();
+    }
+
+    /**
+     * Returns the column oriented table holding all available flights, waiting
+     * for the data files to be loaded as required.
+     *
+     * @return the table holding all available flights.
+     */
+    public static FlightTable getFlightTable() {
+        if (!flightsReady) {
+            await(preloadData());
+            citiesReady = true;
+            flightsReady = true;
+        }
+        return FLIGHTS;
+    }
+
+    private static void loadFlights() {
+        try {
+            setLoadProgress(2, "Loading flights from " + flightSource.getName());
+            boolean loaded = false;
+            if (snapshot != null) {
+                try {
+                    snapshot.readFlights(FLIGHTS);
+                    snapshot = null;
+                    loaded = true;
+                } catch (final RuntimeException ex) {
+                    LOGGER.log(Level.WARNING, "Ignoring unreadable data snapshot " + snapshot.getFile(), ex);
+                    FLIGHTS.clear();
+                    discardSnapshot();
+                }
+            }
+            if (!loaded) {
+                try {
+                    readFlights(flightSource);
+                    if (citiesComplete) {
+                        writeSnapshot();
                     }
-                    line = in.readLine();
+                } catch (final IOException ex) {
+                    Exceptions.printStackTrace(ex);
                 }
-            } catch (final IOException ex) {
-                Exceptions.printStackTrace(ex);
+            }
+            setLoadProgress(3, "Indexing flights");
+            flightIndex = FlightIndex.build(FLIGHTS, CITIES.size());
+        } catch (final RuntimeException ex) {
+            // Leave no partially loaded flights behind, but always leave an
+            // index so that the flights of a city can still be queried.
+            Exceptions.printStackTrace(ex);
+            FLIGHTS.clear();
+            snapshot = null;
+            flightIndex = FlightIndex.build(FLIGHTS, CITIES.size());
+        }
+        setLoadProgress(LOAD_STEPS, "Finished loading pandemic data");
+    }
+
+    /**
+     * Appends every flight from the specified source whose cities are known to
+     * FLIGHTS.
+     */
+    private static void readFlights(final FlightSource source) throws IOException {
+        if (source instanceof CsvFlightSource) {
+            // A plain file can be memory mapped and parsed in parallel.
+            flightFeedPosition = FlightFileLoader.load(((CsvFlightSource) source).getFile(), CITIES, FLIGHTS);
+            return;
+        }
+        try (final FlightSource.Reader reader = source.open()) {
+            while (reader.next()) {
+                final int sourceId = getCityId(reader.getSource());
+                final int destinationId = getCityId(reader.getDestination());
+                if (sourceId >= 0 && destinationId >= 0) {
+                    FLIGHTS.add(sourceId, destinationId, reader.getDepartureTime(), reader.getPassengers(), reader.getAirline());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the id of the specified city in CITIES, looking it up by name if
+     * it was not loaded from the cities data file, or -1 if it is null or not
+     * a known city.
+     */
+    private static int getCityId(final City city) {
+        if (city == null) {
+            return -1;
+        }
+        if (city.getId() >= 0 && city.getId() < CITIES.size()) {
+            return city.getId();
+        }
+        final City knownCity = CITIES.find(city.getName());
+        return knownCity == null ? -1 : knownCity.getId();
+    }
+
+    /**
+     * Adds a listener to be notified when flights are appended from the flight
+     * feed.
+     *
+     * @param listener the listener to add.
+     */
+    public static void addFlightListener(final FlightListener listener) {
+        FLIGHT_LISTENERS.add(listener);
+    }
+
+    /**
+     * Removes a listener previously added with
+     * {@link #addFlightListener(FlightListener)}.
+     *
+     * @param listener the listener to remove.
+     */
+    public static void removeFlightListener(final FlightListener listener) {
+        FLIGHT_LISTENERS.remove(listener);
+    }
+
+    /**
+     * Starts watching the flights file for appended flights, checking it at
+     * the specified interval. Each check reads only the complete lines written
+     * since the previous check, appends their flights to the loaded flights
+     * and indexes, and notifies the flight listeners. The feed is expected to
+     * write a whole line at a time. If the file is replaced rather than
+     * appended to, watching stops and a warning is logged, leaving the
+     * flights already loaded in place.
+     * <p>
+     * Only flights loaded from a plain CSV file can be watched.
+     *
+     * @param intervalMillis the time between checks in milliseconds.
+     * @return true if the flights are now being watched, or false if they
+     * were not loaded from a file that can be watched.
+     */
+    public static boolean startWatchingFlights(final long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("The interval must be positive: " + intervalMillis);
+        }
+        getFlightTable();
+        if (!(flightSource instanceof CsvFlightSource) || flightFeedPosition == null || flightIndex == null) {
+            return false;
+        }
+        synchronized (WATCH_LOCK) {
+            flightFeedInterval = intervalMillis;
+            if (flightFeedTask == null) {
+                flightFeedTask = LOADER.create(OutbreakUtilities::pollFlightFeed);
+                flightFeedTask.schedule((int) Math.min(Integer.MAX_VALUE, intervalMillis));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops watching the flights file for appended flights.
+     */
+    public static void stopWatchingFlights() {
+        synchronized (WATCH_LOCK) {
+            if (flightFeedTask != null) {
+                flightFeedTask.cancel();
+                flightFeedTask = null;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the flights file is being watched for appended flights.
+     *
+     * @return true if the flights file is being watched.
+     */
+    public static boolean isWatchingFlights() {
+        synchronized (WATCH_LOCK) {
+            return flightFeedTask != null;
+        }
+    }
+
+    /**
+     * Reads any flights appended to the flights file since it was last read.
+     * This runs on the loader thread, so it never overlaps the initial load or
+     * another check, and FLIGHTS is only ever appended to by one thread.
+     */
+    private static void pollFlightFeed() {
+        final int firstRow = FLIGHTS.size();
+        try {
+            final FlightFileLoader.Position position = FlightFileLoader.tail(((CsvFlightSource) flightSource).getFile(), flightFeedPosition, CITIES, FLIGHTS);
+            if (position == null) {
+                // The loaded flights came from the old file, so the new one
+                // cannot simply be appended to them.
+                LOGGER.log(Level.WARNING, "Stopped watching {0} as it has been replaced rather than appended to", flightSource.getName());
+                stopWatchingFlights();
+                return;
+            }
+            flightFeedPosition = position;
+        } catch (final IOException | RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Unable to read new flights from " + flightSource.getName(), ex);
+        }
+
+        final int lastRow = FLIGHTS.size();
+        if (lastRow > firstRow) {
+            flightIndex = flightIndex.append(firstRow, CITIES.size());
+            final List<Flight> added = new ArrayList<>(lastRow - firstRow);
+            for (int row = firstRow; row < lastRow; row++) {
+                added.add(FLIGHTS.getFlight(row));
+            }
+            final List<Flight> flights = Collections.unmodifiableList(added);
+            for (final FlightListener listener : FLIGHT_LISTENERS) {
+                try {
+                    listener.flightsAdded(flights);
+                } catch (final RuntimeException ex) {
+                    Exceptions.printStackTrace(ex);
+                }
+            }
+        }
+
+        synchronized (WATCH_LOCK) {
+            if (flightFeedTask != null) {
+                flightFeedTask.schedule((int) Math.min(Integer.MAX_VALUE, flightFeedInterval));
             }
         }
-        return FLIGHTS;
     }
 
     /**
@@ -478,7 +1058,7 @@ public class OutbreakUtilities {
         long currentTime = System.currentTimeMillis();
         currentTime -= currentTime % minuteMillis;
 
-        final List<City> cities = new ArrayList<>(getCities().values());
+        final List<City> cities = new ArrayList<>(getCities().asList());
 
         int maxPopulation = 0;
         final Iterator<City> cityIter = cities.iterator();
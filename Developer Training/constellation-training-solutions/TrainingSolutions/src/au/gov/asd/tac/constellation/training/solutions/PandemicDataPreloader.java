@@ -0,0 +1,45 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import org.openide.modules.OnStart;
+
+/**
+ * Pandemic Data Preloader.
+ * <p>
+ * Starts loading the cities, outbreaks and flights in the background when the
+ * module starts, so that they are usually ready by the time a plugin needs
+ * them.
+ * <p>
+ * If the {@value #FLIGHT_FEED_INTERVAL_PROPERTY} system property is set, the
+ * flights file is then watched for new flights, checking it every that many
+ * milliseconds.
+ */
+@OnStart
+public class PandemicDataPreloader implements Runnable {
+
+    public static final String FLIGHT_FEED_INTERVAL_PROPERTY = "au.gov.asd.tac.constellation.training.solutions.flightFeedInterval";
+
+    @Override
+    public void run() {
+        final Long flightFeedInterval = Long.getLong(FLIGHT_FEED_INTERVAL_PROPERTY);
+        if (flightFeedInterval != null && flightFeedInterval > 0) {
+            OutbreakUtilities.preloadData().thenRun(() -> OutbreakUtilities.startWatchingFlights(flightFeedInterval));
+        } else {
+            OutbreakUtilities.preloadData();
+        }
+    }
+}
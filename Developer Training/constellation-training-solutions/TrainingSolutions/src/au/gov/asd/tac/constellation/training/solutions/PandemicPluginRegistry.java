@@ -18,8 +18,14 @@ package au.gov.asd.tac.constellation.training.solutions;
 import au.gov.asd.tac.constellation.training.solutions.chapter2.ImportInfectedCitiesPlugin;
 import au.gov.asd.tac.constellation.training.solutions.chapter4.ChainCitiesPlugin;
 import au.gov.asd.tac.constellation.training.solutions.chapter4.ImportCustomCitiesPlugin;
+import au.gov.asd.tac.constellation.training.solutions.chapter5.CompartmentalSpreadPlugin;
+import au.gov.asd.tac.constellation.training.solutions.chapter5.JumpToDayPlugin;
+import au.gov.asd.tac.constellation.training.solutions.chapter5.MonteCarloSpreadPlugin;
 import au.gov.asd.tac.constellation.training.solutions.chapter5.PandemicArrangementPlugin;
 import au.gov.asd.tac.constellation.training.solutions.chapter5.PercentageAfflictedPlugin;
+import au.gov.asd.tac.constellation.training.solutions.chapter5.ScenarioSweepPlugin;
+import au.gov.asd.tac.constellation.training.solutions.chapter5.SimulateInterventionsPlugin;
+import au.gov.asd.tac.constellation.training.solutions.chapter5.SimulateWorldPlugin;
 import au.gov.asd.tac.constellation.training.solutions.chapter5.SpreadInfectionPlugin;
 
 /**
@@ -34,4 +40,10 @@ public class PandemicPluginRegistry {
     public static final String ARRANGE_BY_GEOGRAPHIC_COORDINATES = PandemicArrangementPlugin.class.getName();
     public static final String SPREAD_INFECTION = SpreadInfectionPlugin.class.getName();
     public static final String PERCENTAGE_AFFLICTED = PercentageAfflictedPlugin.class.getName();
+    public static final String COMPARTMENTAL_SPREAD = CompartmentalSpreadPlugin.class.getName();
+    public static final String MONTE_CARLO_SPREAD = MonteCarloSpreadPlugin.class.getName();
+    public static final String SCENARIO_SWEEP = ScenarioSweepPlugin.class.getName();
+    public static final String SIMULATE_WORLD = SimulateWorldPlugin.class.getName();
+    public static final String JUMP_TO_DAY = JumpToDayPlugin.class.getName();
+    public static final String SIMULATE_INTERVENTIONS = SimulateInterventionsPlugin.class.getName();
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.openide.modules.InstalledFileLocator;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Partitioned Flight Source.
+ * <p>
+ * Reads flights from a directory of partition files, by default the flights
+ * directory installed alongside Flights.csv. Each partition is a CSV file, or
+ * a gzipped CSV file ending in ".csv.gz", with its own header line. Partitions
+ * are read in order of file name, so daily partitions named by date are read
+ * in date order, and each one is only opened once the previous one has been
+ * read.
+ */
+@ServiceProvider(service = FlightSource.class, position = 100)
+public class PartitionedFlightSource implements FlightSource {
+
+    private final File directory;
+
+    public PartitionedFlightSource() {
+        this(InstalledFileLocator.getDefault().locate("modules/ext/flights", "au.gov.asd.constellation.training.solutions", false));
+    }
+
+    public PartitionedFlightSource(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the directory this source reads.
+     *
+     * @return the directory this source reads.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public String getName() {
+        return directory == null ? "flights" : directory.getName();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return !getFiles().isEmpty();
+    }
+
+    /**
+     * Returns the partition files in the directory, ordered by name.
+     *
+     * @return the partition files in the directory.
+     */
+    @Override
+    public List<File> getFiles() {
+        final File[] partitions = directory == null ? null : directory.listFiles(file -> {
+            final String name = file.getName().toLowerCase();
+            return file.isFile() && (name.endsWith(".csv") || name.endsWith(".csv.gz"));
+        });
+        if (partitions == null) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(partitions, (a, b) -> a.getName().compareTo(b.getName()));
+        return Arrays.asList(partitions);
+    }
+
+    @Override
+    public Reader open() throws IOException {
+        return new PartitionReader(new ArrayList<>(getFiles()), OutbreakUtilities.getCities());
+    }
+
+    /**
+     * Reads each partition in turn, opening the next partition only when the
+     * current one has been exhausted.
+     */
+    private static final class PartitionReader implements Reader {
+
+        private final List<File> partitions;
+        private final CityTable cities;
+        private int nextPartition = 0;
+        private CsvFlightReader current = null;
+
+        private PartitionReader(final List<File> partitions, final CityTable cities) {
+            this.partitions = partitions;
+            this.cities = cities;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            while (current == null || !current.next()) {
+                if (current != null) {
+                    current.close();
+                    current = null;
+                }
+                if (nextPartition == partitions.size()) {
+                    return false;
+                }
+                current = CsvFlightReader.open(partitions.get(nextPartition++), cities);
+            }
+            return true;
+        }
+
+        @Override
+        public City getSource() {
+            return current.getSource();
+        }
+
+        @Override
+        public City getDestination() {
+            return current.getDestination();
+        }
+
+        @Override
+        public long getDepartureTime() {
+            return current.getDepartureTime();
+        }
+
+        @Override
+        public int getPassengers() {
+            return current.getPassengers();
+        }
+
+        @Override
+        public String getAirline() {
+            return current.getAirline();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+}
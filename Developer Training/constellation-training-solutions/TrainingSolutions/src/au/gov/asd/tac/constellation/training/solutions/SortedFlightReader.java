@@ -0,0 +1,401 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Sorted Flight Reader.
+ * <p>
+ * Returns the flights of another reader in departure order, with flights
+ * departing at the same time in the order they were read. Flights.csv and
+ * other feeds are not written in departure order, and a flight may be read
+ * long after flights that depart later, so the whole source is read before the
+ * first flight is returned.
+ * <p>
+ * The source is read in runs of a fixed number of flights. Each run is sorted
+ * in memory and, unless it is the last, written to a temporary file. Runs are
+ * merged into longer runs until at most 64 remain, and those are merged as
+ * this reader advances. Memory is therefore bounded by the run size and the
+ * number of distinct cities and airlines, however many flights the source
+ * holds. The temporary files are deleted when this reader is closed.
+ */
+public final class SortedFlightReader implements FlightSource.Reader {
+
+    static final int DEFAULT_RUN_SIZE = 1 << 18;
+
+    private static final int MAX_MERGE_WIDTH = 64;
+    private static final int RUN_BUFFER_SIZE = 1 << 16;
+    private static final int RECORD_SIZE = Long.BYTES + 4 * Integer.BYTES;
+
+    private final List<City> cities = new ArrayList<>();
+    private final Map<City, Integer> cityIds = new HashMap<>();
+    private final List<String> airlines = new ArrayList<>();
+    private final Map<String, Integer> airlineIds = new HashMap<>();
+
+    private final List<File> runFiles = new ArrayList<>();
+    private final PriorityQueue<Run> runs = new PriorityQueue<>();
+    private Run current = null;
+
+    private SortedFlightReader() {
+    }
+
+    /**
+     * Reads every flight from the specified reader and returns a reader over
+     * them in departure order. The specified reader is left open.
+     *
+     * @param reader the flights to sort.
+     * @return a reader over the flights in departure order.
+     * @throws IOException if the flights cannot be read or the temporary
+     * files cannot be written.
+     */
+    public static SortedFlightReader sort(final FlightSource.Reader reader) throws IOException {
+        return sort(reader, DEFAULT_RUN_SIZE);
+    }
+
+    static SortedFlightReader sort(final FlightSource.Reader reader, final int runSize) throws IOException {
+        if (runSize <= 0) {
+            throw new IllegalArgumentException("The run size must be positive");
+        }
+        final SortedFlightReader sorted = new SortedFlightReader();
+        try {
+            sorted.read(reader, runSize);
+        } catch (final IOException | RuntimeException ex) {
+            sorted.close();
+            throw ex;
+        }
+        return sorted;
+    }
+
+    private void read(final FlightSource.Reader reader, final int runSize) throws IOException {
+        long[] departureTimes = new long[Math.min(runSize, 1024)];
+        int[] sources = new int[departureTimes.length];
+        int[] destinations = new int[departureTimes.length];
+        int[] passengers = new int[departureTimes.length];
+        int[] airlineColumn = new int[departureTimes.length];
+        int count = 0;
+        List<File> sortedRuns = new ArrayList<>();
+        while (reader.next()) {
+            if (count == runSize) {
+                sortedRuns.add(writeRun(departureTimes, sources, destinations, passengers, airlineColumn, count));
+                count = 0;
+            } else if (count == departureTimes.length) {
+                final int capacity = (int) Math.min((long) count * 2, runSize);
+                departureTimes = Arrays.copyOf(departureTimes, capacity);
+                sources = Arrays.copyOf(sources, capacity);
+                destinations = Arrays.copyOf(destinations, capacity);
+                passengers = Arrays.copyOf(passengers, capacity);
+                airlineColumn = Arrays.copyOf(airlineColumn, capacity);
+            }
+            departureTimes[count] = reader.getDepartureTime();
+            sources[count] = encodeCity(reader.getSource());
+            destinations[count] = encodeCity(reader.getDestination());
+            passengers[count] = reader.getPassengers();
+            airlineColumn[count] = encodeAirline(reader.getAirline());
+            count++;
+        }
+
+        // Merge consecutive runs into longer ones until few enough remain to
+        // be read at once, so that open files and buffers stay bounded.
+        while (sortedRuns.size() > MAX_MERGE_WIDTH) {
+            final List<File> mergedRuns = new ArrayList<>();
+            for (int i = 0; i < sortedRuns.size(); i += MAX_MERGE_WIDTH) {
+                mergedRuns.add(mergeRuns(sortedRuns.subList(i, Math.min(i + MAX_MERGE_WIDTH, sortedRuns.size()))));
+            }
+            for (final File runFile : sortedRuns) {
+                Files.deleteIfExists(runFile.toPath());
+                runFiles.remove(runFile);
+            }
+            sortedRuns = mergedRuns;
+        }
+        for (int i = 0; i < sortedRuns.size(); i++) {
+            addRun(runs, openRun(i, sortedRuns.get(i)));
+        }
+        if (count > 0) {
+            addRun(runs, new MemoryRun(sortedRuns.size(), departureTimes, sources, destinations, passengers, airlineColumn, FlightIndex.sortByDepartureTime(departureTimes, count)));
+        }
+    }
+
+    private int encodeCity(final City city) {
+        if (city == null) {
+            return -1;
+        }
+        return cityIds.computeIfAbsent(city, c -> {
+            cities.add(c);
+            return cities.size() - 1;
+        });
+    }
+
+    private int encodeAirline(final String airline) {
+        if (airline == null) {
+            return -1;
+        }
+        return airlineIds.computeIfAbsent(airline, a -> {
+            airlines.add(a);
+            return airlines.size() - 1;
+        });
+    }
+
+    private File writeRun(final long[] departureTimes, final int[] sources, final int[] destinations, final int[] passengers, final int[] airlineColumn, final int count) throws IOException {
+        final File runFile = createRunFile();
+        try (final DataOutputStream out = openOutput(runFile)) {
+            for (final int row : FlightIndex.sortByDepartureTime(departureTimes, count)) {
+                out.writeLong(departureTimes[row]);
+                out.writeInt(sources[row]);
+                out.writeInt(destinations[row]);
+                out.writeInt(passengers[row]);
+                out.writeInt(airlineColumn[row]);
+            }
+        }
+        return runFile;
+    }
+
+    private File mergeRuns(final List<File> sortedRuns) throws IOException {
+        final File runFile = createRunFile();
+        final PriorityQueue<Run> merge = new PriorityQueue<>();
+        try (final DataOutputStream out = openOutput(runFile)) {
+            for (int i = 0; i < sortedRuns.size(); i++) {
+                addRun(merge, openRun(i, sortedRuns.get(i)));
+            }
+            while (!merge.isEmpty()) {
+                final Run run = merge.poll();
+                out.writeLong(run.departureTime);
+                out.writeInt(run.source);
+                out.writeInt(run.destination);
+                out.writeInt(run.passengers);
+                out.writeInt(run.airline);
+                addRun(merge, run);
+            }
+        } finally {
+            for (final Run run : merge) {
+                run.close();
+            }
+        }
+        return runFile;
+    }
+
+    private File createRunFile() throws IOException {
+        final File runFile = File.createTempFile("flights", ".run");
+        runFiles.add(runFile);
+        return runFile;
+    }
+
+    private static DataOutputStream openOutput(final File runFile) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile), RUN_BUFFER_SIZE));
+    }
+
+    private static Run openRun(final int order, final File runFile) throws IOException {
+        return new FileRun(order, new DataInputStream(new BufferedInputStream(new FileInputStream(runFile), RUN_BUFFER_SIZE)), runFile.length() / RECORD_SIZE);
+    }
+
+    /**
+     * Moves the specified run to its next flight and queues it, or closes it
+     * if it has been exhausted.
+     */
+    private static void addRun(final PriorityQueue<Run> queue, final Run run) throws IOException {
+        boolean advanced = false;
+        try {
+            advanced = run.advance();
+        } finally {
+            if (advanced) {
+                queue.add(run);
+            } else {
+                run.close();
+            }
+        }
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        if (current != null) {
+            final Run run = current;
+            current = null;
+            addRun(runs, run);
+        }
+        current = runs.poll();
+        return current != null;
+    }
+
+    @Override
+    public City getSource() {
+        return current.source < 0 ? null : cities.get(current.source);
+    }
+
+    @Override
+    public City getDestination() {
+        return current.destination < 0 ? null : cities.get(current.destination);
+    }
+
+    @Override
+    public long getDepartureTime() {
+        return current.departureTime;
+    }
+
+    @Override
+    public int getPassengers() {
+        return current.passengers;
+    }
+
+    @Override
+    public String getAirline() {
+        return current.airline < 0 ? null : airlines.get(current.airline);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        if (current != null) {
+            runs.add(current);
+            current = null;
+        }
+        for (final Run run : runs) {
+            try {
+                run.close();
+            } catch (final IOException ex) {
+                failure = failure == null ? ex : failure;
+            }
+        }
+        runs.clear();
+        for (final File runFile : runFiles) {
+            try {
+                Files.deleteIfExists(runFile.toPath());
+            } catch (final IOException ex) {
+                failure = failure == null ? ex : failure;
+            }
+        }
+        runFiles.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * A sorted run of flights, holding the flight at its head. Runs are
+     * ordered by the departure time of their heads, and then by the order in
+     * which they were read, so that the merge is stable.
+     */
+    private abstract static class Run implements Comparable<Run> {
+
+        private final int order;
+
+        protected long departureTime;
+        protected int source;
+        protected int destination;
+        protected int passengers;
+        protected int airline;
+
+        protected Run(final int order) {
+            this.order = order;
+        }
+
+        /**
+         * Moves the head to the next flight of the run.
+         *
+         * @return false if the run has been exhausted.
+         */
+        protected abstract boolean advance() throws IOException;
+
+        protected void close() throws IOException {
+        }
+
+        @Override
+        public int compareTo(final Run o) {
+            final int byTime = Long.compare(departureTime, o.departureTime);
+            return byTime != 0 ? byTime : Integer.compare(order, o.order);
+        }
+    }
+
+    private static final class MemoryRun extends Run {
+
+        private final long[] departureTimes;
+        private final int[] sources;
+        private final int[] destinations;
+        private final int[] passengerCounts;
+        private final int[] airlineColumn;
+        private final int[] rows;
+        private int next = 0;
+
+        private MemoryRun(final int order, final long[] departureTimes, final int[] sources, final int[] destinations, final int[] passengerCounts, final int[] airlineColumn, final int[] rows) {
+            super(order);
+            this.departureTimes = departureTimes;
+            this.sources = sources;
+            this.destinations = destinations;
+            this.passengerCounts = passengerCounts;
+            this.airlineColumn = airlineColumn;
+            this.rows = rows;
+        }
+
+        @Override
+        protected boolean advance() {
+            if (next == rows.length) {
+                return false;
+            }
+            final int row = rows[next++];
+            departureTime = departureTimes[row];
+            source = sources[row];
+            destination = destinations[row];
+            passengers = passengerCounts[row];
+            airline = airlineColumn[row];
+            return true;
+        }
+    }
+
+    private static final class FileRun extends Run {
+
+        private final DataInputStream in;
+        private long remaining;
+
+        private FileRun(final int order, final DataInputStream in, final long count) {
+            super(order);
+            this.in = in;
+            this.remaining = count;
+        }
+
+        @Override
+        protected boolean advance() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            departureTime = in.readLong();
+            source = in.readInt();
+            destination = in.readInt();
+            passengers = in.readInt();
+            airline = in.readInt();
+            return true;
+        }
+
+        @Override
+        protected void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -43,6 +43,8 @@ public class ImportInfectedCitiesPlugin extends RecordStoreQueryPlugin implement
 
     @Override
     protected RecordStore query(final RecordStore query, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException, PluginException {
+        OutbreakUtilities.awaitData(interaction);
+
         final RecordStore result = new GraphRecordStore();
 
         for (final OutbreakUtilities.City infectedCity : OutbreakUtilities.getInfectedCities()) {
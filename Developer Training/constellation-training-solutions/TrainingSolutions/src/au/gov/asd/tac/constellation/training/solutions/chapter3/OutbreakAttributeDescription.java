@@ -39,6 +39,14 @@ public class OutbreakAttributeDescription extends AbstractObjectAttributeDescrip
         data[id] = Outbreak.valueOf(value);
     }
 
+    @Override
+    public void setObject(final int id, final Object value) {
+        super.setObject(id, value);
+        if (data[id] instanceof Outbreak) {
+            data[id] = ((Outbreak) data[id]).intern();
+        }
+    }
+
     @Override
     public String getString(final int id) {
         return data[id] == null ? null : data[id].toString();
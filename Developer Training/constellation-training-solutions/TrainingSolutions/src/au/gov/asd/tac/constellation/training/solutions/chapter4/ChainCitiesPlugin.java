@@ -63,6 +63,8 @@ public class ChainCitiesPlugin extends RecordStoreQueryPlugin implements DataAcc
 
     @Override
     protected RecordStore query(final RecordStore query, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException, PluginException {
+        OutbreakUtilities.awaitData(interaction);
+
         final DateTimeRange datetimeRange = parameters.getDateTimeRangeValue(CoreGlobalParameters.DATETIME_RANGE_PARAMETER_ID);
         final long startTime = datetimeRange.getZonedStartEnd()[0].toInstant().toEpochMilli();
         final long endTime = datetimeRange.getZonedStartEnd()[1].toInstant().toEpochMilli();
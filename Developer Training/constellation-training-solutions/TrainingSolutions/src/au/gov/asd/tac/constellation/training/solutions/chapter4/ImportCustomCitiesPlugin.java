@@ -60,6 +60,8 @@ public class ImportCustomCitiesPlugin extends RecordStoreQueryPlugin implements
 
     @Override
     protected RecordStore query(final RecordStore query, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException, PluginException {
+        OutbreakUtilities.awaitData(interaction);
+
         final RecordStore result = new GraphRecordStore();
 
         final String citiesString = parameters.getStringValue(CITIES_PARAMETER_ID);
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+
+/**
+ * Compartmental Model.
+ * <p>
+ * A day by day SEIR simulation of every disease over a
+ * {@link PandemicNetwork}. Each city holds susceptible, exposed, infected and
+ * recovered compartments for each disease, and each day:
+ * <ul>
+ * <li>susceptible people are exposed at a rate proportional to the infected
+ * people in the city plus the infected visitors flying in, weighted by the
+ * passengers on each inbound edge as a share of the source's population;</li>
+ * <li>exposed people become infected once their incubation period has
+ * passed; and</li>
+ * <li>infected people recover once their recovery period has passed.</li>
+ * </ul>
+ * With an incubation period of zero the exposed compartment is skipped,
+ * giving an SIR model.
+ * <p>
+ * The compartments are held in flat arrays indexed by
+ * {@code vertex * diseaseCount + disease}. They are allocated when the model
+ * is created, so stepping the model allocates nothing. Only cities are
+ * advanced; other vertices keep their initial outbreaks and act only as
+ * sources of infection.
+ */
+public final class CompartmentalModel {
+
+    private final PandemicNetwork network;
+    private final int diseaseCount;
+    private final String[] diseaseNames;
+    private final double[] initialInfected;
+
+    private final double transmissionRate;
+    private final double incubationProbability;
+    private final double recoveryProbability;
+    private final double[] edgeWeights;
+
+    private final double[] susceptible;
+    private final double[] exposed;
+    private final double[] infected;
+    private final double[] recovered;
+    private final double[] infectionPressure;
+    private int day;
+
+    /**
+     * Creates a model seeded with the specified outbreaks.
+     *
+     * @param network the network to simulate.
+     * @param outbreaks the initial outbreak of every vertex in the network,
+     * which may be null.
+     * @param transmissionRate the number of people each infected person
+     * exposes per day in a fully susceptible population.
+     * @param incubationPeriod the mean number of days from exposure to
+     * infection, or 0 for an SIR model.
+     * @param recoveryPeriod the mean number of days from infection to
+     * recovery.
+     * @param travelScale the factor applied to the passengers on every inbound
+     * edge.
+     */
+    public CompartmentalModel(final PandemicNetwork network, final Outbreak[] outbreaks, final double transmissionRate, final double incubationPeriod, final double recoveryPeriod, final double travelScale) {
+        if (transmissionRate < 0 || incubationPeriod < 0 || recoveryPeriod <= 0 || travelScale < 0) {
+            throw new IllegalArgumentException("Rates and scales must not be negative and the recovery period must be positive");
+        }
+        this.network = network;
+        this.transmissionRate = transmissionRate;
+        this.incubationProbability = incubationPeriod == 0 ? 1 : 1 - Math.exp(-1 / incubationPeriod);
+        this.recoveryProbability = 1 - Math.exp(-1 / recoveryPeriod);
+
+        final DiseaseIndex diseases = new DiseaseIndex(outbreaks);
+        diseaseCount = diseases.size();
+        diseaseNames = new String[diseaseCount];
+        for (int disease = 0; disease < diseaseCount; disease++) {
+            diseaseNames[disease] = diseases.getName(disease);
+        }
+
+        final int[] counts = diseases.getCounts(outbreaks, network.getPopulations());
+        initialInfected = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            initialInfected[i] = counts[i];
+        }
+
+        edgeWeights = new double[network.getEdgeCount()];
+        for (int edge = 0; edge < edgeWeights.length; edge++) {
+            final int population = network.getPopulation(network.getInboundSource(edge));
+            edgeWeights[edge] = population > 0 ? travelScale * network.getInboundPassengers(edge) / population : 0;
+        }
+
+        susceptible = new double[initialInfected.length];
+        exposed = new double[initialInfected.length];
+        infected = new double[initialInfected.length];
+        recovered = new double[initialInfected.length];
+        infectionPressure = new double[initialInfected.length];
+        reset();
+    }
+
+    /**
+     * Returns the model to its initial outbreaks at day 0.
+     */
+    public void reset() {
+        for (int vertex = 0; vertex < network.getVertexCount(); vertex++) {
+            final int population = network.getPopulation(vertex);
+            for (int disease = 0, i = vertex * diseaseCount; disease < diseaseCount; disease++, i++) {
+                susceptible[i] = Math.max(0, population - initialInfected[i]);
+                exposed[i] = 0;
+                infected[i] = initialInfected[i];
+                recovered[i] = 0;
+            }
+        }
+        day = 0;
+    }
+
+    /**
+     * Advances every city by one day.
+     */
+    public void step() {
+        final int vertexCount = network.getVertexCount();
+        final int[] populations = network.getPopulations();
+        final int[] inboundSources = network.getInboundSources();
+        System.arraycopy(infected, 0, infectionPressure, 0, infected.length);
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            final int base = vertex * diseaseCount;
+            final int inboundEnd = network.getInboundEnd(vertex);
+            for (int edge = network.getInboundStart(vertex); edge < inboundEnd; edge++) {
+                final double weight = edgeWeights[edge];
+                final int sourceBase = inboundSources[edge] * diseaseCount;
+                for (int disease = 0; disease < diseaseCount; disease++) {
+                    infectionPressure[base + disease] += weight * infected[sourceBase + disease];
+                }
+            }
+        }
+
+        final boolean seir = incubationProbability < 1;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            final int population = populations[vertex];
+            if (population <= 0 || !network.isCity(vertex)) {
+                continue;
+            }
+            final double exposureRate = transmissionRate / population;
+            for (int disease = 0, i = vertex * diseaseCount; disease < diseaseCount; disease++, i++) {
+                final double newlyExposed = infectionPressure[i] == 0 ? 0 : susceptible[i] * -Math.expm1(-exposureRate * infectionPressure[i]);
+                final double newlyRecovered = infected[i] * recoveryProbability;
+                susceptible[i] -= newlyExposed;
+                recovered[i] += newlyRecovered;
+                if (seir) {
+                    final double newlyInfected = exposed[i] * incubationProbability;
+                    exposed[i] += newlyExposed - newlyInfected;
+                    infected[i] += newlyInfected - newlyRecovered;
+                } else {
+                    infected[i] += newlyExposed - newlyRecovered;
+                }
+            }
+        }
+        day++;
+    }
+
+    /**
+     * Advances every city by the specified number of days.
+     *
+     * @param days the number of days.
+     */
+    public void run(final int days) {
+        for (int i = 0; i < days; i++) {
+            step();
+        }
+    }
+
+    /**
+     * Returns the number of days the model has been advanced since it was
+     * created or reset.
+     *
+     * @return the current day.
+     */
+    public int getDay() {
+        return day;
+    }
+
+    /**
+     * Returns the number of diseases in the model.
+     *
+     * @return the number of diseases.
+     */
+    public int getDiseaseCount() {
+        return diseaseCount;
+    }
+
+    /**
+     * Returns the name of the specified disease.
+     *
+     * @param disease the index of the disease.
+     * @return the name of the disease.
+     */
+    public String getDiseaseName(final int disease) {
+        return diseaseNames[disease];
+    }
+
+    /**
+     * Returns the number of people in the specified vertex currently carrying
+     * the specified disease, being those exposed to it or infected with it.
+     *
+     * @param vertex the index of the vertex.
+     * @param disease the index of the disease.
+     * @return the number of people carrying the disease.
+     */
+    public double getAffected(final int vertex, final int disease) {
+        final int i = vertex * diseaseCount + disease;
+        return exposed[i] + infected[i];
+    }
+
+    /**
+     * Returns the number of people in the specified vertex who have recovered
+     * from the specified disease.
+     *
+     * @param vertex the index of the vertex.
+     * @param disease the index of the disease.
+     * @return the number of people who have recovered.
+     */
+    public double getRecovered(final int vertex, final int disease) {
+        return recovered[vertex * diseaseCount + disease];
+    }
+
+    /**
+     * Returns the current outbreak of the specified vertex, counting the
+     * people carrying each disease rounded to the nearest person.
+     *
+     * @param vertex the index of the vertex.
+     * @return the current outbreak of the vertex.
+     */
+    public Outbreak getOutbreak(final int vertex) {
+        final Outbreak.Builder outbreak = new Outbreak().edit();
+        for (int disease = 0; disease < diseaseCount; disease++) {
+            final int affected = (int) Math.round(getAffected(vertex, disease));
+            if (affected > 0) {
+                outbreak.spread(diseaseNames[disease], affected);
+            }
+        }
+        return outbreak.build().intern();
+    }
+}
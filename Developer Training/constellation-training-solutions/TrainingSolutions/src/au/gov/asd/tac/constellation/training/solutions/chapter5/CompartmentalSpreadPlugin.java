@@ -0,0 +1,138 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
+import au.gov.asd.tac.constellation.plugins.Plugin;
+import au.gov.asd.tac.constellation.plugins.PluginException;
+import au.gov.asd.tac.constellation.plugins.PluginInfo;
+import au.gov.asd.tac.constellation.plugins.PluginInteraction;
+import au.gov.asd.tac.constellation.plugins.PluginNotificationLevel;
+import au.gov.asd.tac.constellation.plugins.PluginType;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameter;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
+import au.gov.asd.tac.constellation.plugins.parameters.types.FloatParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.FloatParameterType.FloatParameterValue;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType.IntegerParameterValue;
+import au.gov.asd.tac.constellation.plugins.parameters.types.SingleChoiceParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.SingleChoiceParameterType.SingleChoiceParameterValue;
+import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import au.gov.asd.tac.constellation.training.solutions.chapter3.PandemicConcept;
+import java.util.Arrays;
+import org.openide.util.NbBundle;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Compartmental Spread Plugin.
+ * <p>
+ * Spreads the outbreaks in the graph one day at a time using a
+ * {@link CompartmentalModel}, as an alternative to the single step used by
+ * {@link SpreadInfectionPlugin}. Each city's outbreak is replaced by the
+ * number of people exposed to or infected with each disease at the end of the
+ * run.
+ */
+@ServiceProvider(service = Plugin.class)
+@NbBundle.Messages("CompartmentalSpreadPlugin=Simulate Compartmental Spread")
+@PluginInfo(pluginType = PluginType.NONE, tags = {"OUTBREAK"})
+public class CompartmentalSpreadPlugin extends SimpleEditPlugin {
+
+    public static final String SIR_MODEL = "SIR";
+    public static final String SEIR_MODEL = "SEIR";
+
+    public static final String NUMBER_OF_DAYS_PARAMETER_ID = PluginParameter.buildId(CompartmentalSpreadPlugin.class, "num_days");
+    private static final String NUMBER_OF_DAYS_PARAMETER_LABEL = "Number of Days";
+    public static final String MODEL_PARAMETER_ID = PluginParameter.buildId(CompartmentalSpreadPlugin.class, "model");
+    private static final String MODEL_PARAMETER_LABEL = "Model";
+    public static final String TRANSMISSION_RATE_PARAMETER_ID = PluginParameter.buildId(CompartmentalSpreadPlugin.class, "transmission_rate");
+    private static final String TRANSMISSION_RATE_PARAMETER_LABEL = "Transmission Rate";
+    public static final String INCUBATION_PERIOD_PARAMETER_ID = PluginParameter.buildId(CompartmentalSpreadPlugin.class, "incubation_period");
+    private static final String INCUBATION_PERIOD_PARAMETER_LABEL = "Incubation Period (Days)";
+    public static final String RECOVERY_PERIOD_PARAMETER_ID = PluginParameter.buildId(CompartmentalSpreadPlugin.class, "recovery_period");
+    private static final String RECOVERY_PERIOD_PARAMETER_LABEL = "Recovery Period (Days)";
+
+    @Override
+    public PluginParameters createParameters() {
+        final PluginParameters parameters = new PluginParameters();
+
+        final PluginParameter<IntegerParameterValue> daysParameter = IntegerParameterType.build(NUMBER_OF_DAYS_PARAMETER_ID, new IntegerParameterValue(30));
+        daysParameter.setName(NUMBER_OF_DAYS_PARAMETER_LABEL);
+        IntegerParameterType.setMinimum(daysParameter, 0);
+        parameters.addParameter(daysParameter);
+
+        final PluginParameter<SingleChoiceParameterValue> modelParameter = SingleChoiceParameterType.build(MODEL_PARAMETER_ID);
+        modelParameter.setName(MODEL_PARAMETER_LABEL);
+        modelParameter.setDescription("SIR moves people straight from susceptible to infected, SEIR holds them as exposed for the incubation period first");
+        SingleChoiceParameterType.setOptions(modelParameter, Arrays.asList(SIR_MODEL, SEIR_MODEL));
+        SingleChoiceParameterType.setChoice(modelParameter, SEIR_MODEL);
+        parameters.addParameter(modelParameter);
+
+        final PluginParameter<FloatParameterValue> transmissionRateParameter = FloatParameterType.build(TRANSMISSION_RATE_PARAMETER_ID);
+        transmissionRateParameter.setName(TRANSMISSION_RATE_PARAMETER_LABEL);
+        transmissionRateParameter.setDescription("The number of people each infected person exposes per day in a fully susceptible population");
+        transmissionRateParameter.setFloatValue(0.3F);
+        parameters.addParameter(transmissionRateParameter);
+
+        final PluginParameter<FloatParameterValue> incubationPeriodParameter = FloatParameterType.build(INCUBATION_PERIOD_PARAMETER_ID);
+        incubationPeriodParameter.setName(INCUBATION_PERIOD_PARAMETER_LABEL);
+        incubationPeriodParameter.setFloatValue(5F);
+        parameters.addParameter(incubationPeriodParameter);
+
+        final PluginParameter<FloatParameterValue> recoveryPeriodParameter = FloatParameterType.build(RECOVERY_PERIOD_PARAMETER_ID);
+        recoveryPeriodParameter.setName(RECOVERY_PERIOD_PARAMETER_LABEL);
+        recoveryPeriodParameter.setFloatValue(10F);
+        parameters.addParameter(recoveryPeriodParameter);
+
+        return parameters;
+    }
+
+    @Override
+    protected void edit(final GraphWriteMethods writableGraph, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException, PluginException {
+        final int numberOfDays = parameters.getIntegerValue(NUMBER_OF_DAYS_PARAMETER_ID);
+        final boolean seir = SEIR_MODEL.equals(parameters.getStringValue(MODEL_PARAMETER_ID));
+        final float transmissionRate = parameters.getFloatValue(TRANSMISSION_RATE_PARAMETER_ID);
+        final float incubationPeriod = seir ? parameters.getFloatValue(INCUBATION_PERIOD_PARAMETER_ID) : 0F;
+        final float recoveryPeriod = parameters.getFloatValue(RECOVERY_PERIOD_PARAMETER_ID);
+
+        final int outbreakAttributeId = PandemicConcept.VertexAttribute.OUTBREAK.get(writableGraph);
+        final PandemicNetwork network = PandemicNetwork.get(writableGraph);
+        if (outbreakAttributeId != Graph.NOT_FOUND && network != null) {
+            final Outbreak[] outbreaks = network.readOutbreaks(writableGraph, outbreakAttributeId);
+            final CompartmentalModel model;
+            try {
+                model = new CompartmentalModel(network, outbreaks, transmissionRate, incubationPeriod, recoveryPeriod, 1);
+            } catch (final IllegalArgumentException ex) {
+                throw new PluginException(PluginNotificationLevel.ERROR, ex.getMessage());
+            }
+
+            for (int day = 0; day < numberOfDays; day++) {
+                interaction.setProgress(day, numberOfDays, "Simulating day " + (day + 1) + " of " + numberOfDays, true);
+                model.step();
+            }
+
+            for (int city = 0; city < network.getCityCount(); city++) {
+                final int vertex = network.getCity(city);
+                final Outbreak outbreak = model.getOutbreak(vertex);
+                if (outbreak != outbreaks[vertex]) {
+                    writableGraph.setObjectValue(outbreakAttributeId, network.getVertexId(vertex), outbreak);
+                }
+            }
+            interaction.setProgress(0, 0, "Finished", true);
+        }
+    }
+}
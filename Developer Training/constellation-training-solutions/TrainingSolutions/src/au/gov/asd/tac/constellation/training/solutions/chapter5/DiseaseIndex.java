@@ -0,0 +1,83 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Disease Index.
+ * <p>
+ * Numbers the diseases present in a set of outbreaks from 0 in the order they
+ * are first seen, so that simulations can hold the afflicted population of
+ * every vertex and disease in a flat array indexed by
+ * {@code vertex * size() + disease}.
+ */
+final class DiseaseIndex {
+
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final String[] names;
+
+    DiseaseIndex(final Outbreak[] outbreaks) {
+        final List<String> diseaseNames = new ArrayList<>();
+        for (final Outbreak outbreak : outbreaks) {
+            if (outbreak != null) {
+                for (final String diseaseName : outbreak.getDiseases()) {
+                    if (!indices.containsKey(diseaseName)) {
+                        indices.put(diseaseName, diseaseNames.size());
+                        diseaseNames.add(diseaseName);
+                    }
+                }
+            }
+        }
+        names = diseaseNames.toArray(new String[diseaseNames.size()]);
+    }
+
+    /**
+     * The number of diseases.
+     */
+    int size() {
+        return names.length;
+    }
+
+    /**
+     * The name of the disease with the specified index.
+     */
+    String getName(final int disease) {
+        return names[disease];
+    }
+
+    /**
+     * The afflicted population of every vertex and disease, indexed by
+     * {@code vertex * size() + disease}, limited to the population of the
+     * vertex.
+     */
+    int[] getCounts(final Outbreak[] outbreaks, final int[] populations) {
+        final int[] counts = new int[outbreaks.length * names.length];
+        for (int vertex = 0; vertex < outbreaks.length; vertex++) {
+            final Outbreak outbreak = outbreaks[vertex];
+            if (outbreak != null) {
+                for (final Map.Entry<String, Integer> entry : outbreak.getOutbreakData().entrySet()) {
+                    counts[vertex * names.length + indices.get(entry.getKey())] = Math.max(0, Math.min(entry.getValue(), populations[vertex]));
+                }
+            }
+        }
+        return counts;
+    }
+}
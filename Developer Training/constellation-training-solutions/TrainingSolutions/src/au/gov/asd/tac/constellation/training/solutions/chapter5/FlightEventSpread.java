@@ -0,0 +1,373 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.training.solutions.FlightSource;
+import au.gov.asd.tac.constellation.training.solutions.FlightTable;
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities;
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+import au.gov.asd.tac.constellation.training.solutions.SortedFlightReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Flight Event Spread.
+ * <p>
+ * Spreads outbreaks between cities one flight at a time, in departure order,
+ * rather than over the passenger totals of each route. A flight carries a
+ * disease only if its source city has already been reached by that disease
+ * when it departs, so infection can never travel back in time along a flight
+ * that left before it arrived. Each departing flight imports the passengers
+ * on it times the afflicted share of its source, rounded up as in
+ * {@link OutbreakUtilities#spreadDisease(Outbreak, int, Outbreak[], int[], int[], int[], int, int, int)},
+ * into its destination at its departure time.
+ * <p>
+ * Between flights the afflicted population of each city grows continuously
+ * by the local spread factor per day, up to the population of the city. This
+ * growth is applied lazily as each city is touched, so a flight costs a fixed
+ * amount of work however long the gap since the cities last saw a flight. The
+ * state is held by city id in flat arrays and no graph is needed.
+ * <p>
+ * Flights need not arrive in departure order. A feed is read in a single pass
+ * through a {@link SortedFlightReader}, which spills sorted runs to temporary
+ * files, so a feed of any number of flights is processed in memory bounded by
+ * the run size and the number of cities. Every flight is read before any is
+ * applied, so a feed that cannot be read leaves the simulation unchanged. A
+ * flight that departs before the current time, either before the start time
+ * or after a time already passed by an earlier run or
+ * {@link #advanceTo(long)}, is skipped and counted by
+ * {@link #getLateFlightCount()}, whether it comes from a table or a feed.
+ */
+public final class FlightEventSpread {
+
+    /**
+     * The infection time of a city that has never been afflicted.
+     */
+    public static final long NEVER_INFECTED = Long.MAX_VALUE;
+
+    private static final double MILLISECONDS_PER_DAY = 24 * 60 * 60 * 1000;
+
+    private final int[] populations;
+    private final DiseaseIndex diseases;
+    private final int diseaseCount;
+    private final double growthPerMillisecond;
+
+    private final double[] afflicted;
+    private final long[] updateTimes;
+    private final long[] infectionTimes;
+    private long time;
+    private long flightCount = 0;
+    private long infectiousFlightCount = 0;
+    private long lateFlightCount = 0;
+
+    /**
+     * Creates a simulation seeded with the specified outbreaks.
+     *
+     * @param outbreaks the initial outbreak of every city, indexed by city id,
+     * which may be null.
+     * @param populations the population of every city, indexed by city id.
+     * @param localSpreadFactor the fraction by which the afflicted population
+     * of each city grows each day.
+     * @param startTime the time of the initial outbreaks in milliseconds since
+     * the epoch.
+     */
+    public FlightEventSpread(final Outbreak[] outbreaks, final int[] populations, final double localSpreadFactor, final long startTime) {
+        if (outbreaks.length != populations.length) {
+            throw new IllegalArgumentException("There must be one population for each outbreak");
+        }
+        if (localSpreadFactor < 0) {
+            throw new IllegalArgumentException("The local spread factor must not be negative");
+        }
+        this.populations = populations.clone();
+        this.growthPerMillisecond = Math.log1p(localSpreadFactor) / MILLISECONDS_PER_DAY;
+        this.time = startTime;
+
+        diseases = new DiseaseIndex(outbreaks);
+        diseaseCount = diseases.size();
+        final int[] counts = diseases.getCounts(outbreaks, populations);
+        afflicted = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            afflicted[i] = counts[i];
+        }
+
+        updateTimes = new long[populations.length];
+        Arrays.fill(updateTimes, startTime);
+        infectionTimes = new long[populations.length];
+        for (int cityId = 0; cityId < populations.length; cityId++) {
+            infectionTimes[cityId] = isAfflicted(cityId) ? startTime : NEVER_INFECTED;
+        }
+    }
+
+    /**
+     * Creates a simulation of every city known to {@link OutbreakUtilities},
+     * seeded with their current outbreaks.
+     *
+     * @param localSpreadFactor the fraction by which the afflicted population
+     * of each city grows each day.
+     * @param startTime the time of the initial outbreaks in milliseconds since
+     * the epoch.
+     * @return a simulation of every city.
+     */
+    public static FlightEventSpread forCities(final double localSpreadFactor, final long startTime) {
+        final int cityCount = OutbreakUtilities.getCityCount();
+        final Outbreak[] outbreaks = new Outbreak[cityCount];
+        final int[] populations = new int[cityCount];
+        for (int cityId = 0; cityId < cityCount; cityId++) {
+            final City city = OutbreakUtilities.getCity(cityId);
+            outbreaks[cityId] = city.getOutbreak();
+            populations[cityId] = city.getPopulation();
+        }
+        return new FlightEventSpread(outbreaks, populations, localSpreadFactor, startTime);
+    }
+
+    /**
+     * Processes every flight in the specified table in departure order,
+     * skipping flights that depart before the current time.
+     *
+     * @param table the flights.
+     */
+    public void run(final FlightTable table) {
+        for (final int row : table.getRowsByDepartureTime()) {
+            flyUnlessLate(table.getSourceId(row), table.getDestinationId(row), table.getDepartureTime(row), table.getPassengers(row));
+        }
+    }
+
+    /**
+     * Processes every remaining flight from the specified reader in departure
+     * order, skipping flights that depart before the current time. The reader
+     * may return flights in any order. Flights between cities that are not
+     * known to the simulation are ignored.
+     *
+     * @param reader the flights.
+     * @throws IOException if the flights cannot be read or sorted.
+     */
+    public void run(final FlightSource.Reader reader) throws IOException {
+        try (final SortedFlightReader sorted = SortedFlightReader.sort(reader)) {
+            while (sorted.next()) {
+                final City source = sorted.getSource();
+                final City destination = sorted.getDestination();
+                if (source != null && destination != null && isCity(source.getId()) && isCity(destination.getId())) {
+                    flyUnlessLate(source.getId(), destination.getId(), sorted.getDepartureTime(), sorted.getPassengers());
+                }
+            }
+        }
+    }
+
+    private void flyUnlessLate(final int sourceId, final int destinationId, final long departureTime, final int passengers) {
+        if (departureTime < time) {
+            lateFlightCount++;
+        } else {
+            fly(sourceId, destinationId, departureTime, passengers);
+        }
+    }
+
+    private boolean isCity(final int cityId) {
+        return cityId >= 0 && cityId < populations.length;
+    }
+
+    /**
+     * Processes a single flight, advancing the current time to its departure.
+     *
+     * @param sourceId the id of the city the flight departs from.
+     * @param destinationId the id of the city the flight arrives in.
+     * @param departureTime the departure time in milliseconds since the epoch,
+     * which must not be before the current time.
+     * @param passengers the number of passengers on the flight.
+     */
+    public void fly(final int sourceId, final int destinationId, final long departureTime, final int passengers) {
+        if (departureTime < time) {
+            throw new IllegalArgumentException("Flights must be processed in departure order: " + departureTime + " is before " + time);
+        }
+        time = departureTime;
+        flightCount++;
+
+        final int sourcePopulation = populations[sourceId];
+        if (infectionTimes[sourceId] > departureTime || sourcePopulation <= 0 || passengers <= 0) {
+            return;
+        }
+        grow(sourceId);
+        grow(destinationId);
+
+        final int sourceBase = sourceId * diseaseCount;
+        final int destinationBase = destinationId * diseaseCount;
+        final int destinationPopulation = populations[destinationId];
+        boolean infectious = false;
+        for (int disease = 0; disease < diseaseCount; disease++) {
+            final double sourceAfflicted = afflicted[sourceBase + disease];
+            if (sourceAfflicted > 0) {
+                final double imported = Math.ceil(passengers * (sourceAfflicted / sourcePopulation));
+                afflicted[destinationBase + disease] = Math.min(afflicted[destinationBase + disease] + imported, destinationPopulation);
+                infectious = true;
+            }
+        }
+        if (infectious) {
+            infectiousFlightCount++;
+            if (infectionTimes[destinationId] == NEVER_INFECTED && isAfflicted(destinationId)) {
+                infectionTimes[destinationId] = departureTime;
+            }
+        }
+    }
+
+    /**
+     * Applies the local growth of the specified city since it was last
+     * updated.
+     */
+    private void grow(final int cityId) {
+        final long elapsed = time - updateTimes[cityId];
+        updateTimes[cityId] = time;
+        if (elapsed > 0 && infectionTimes[cityId] != NEVER_INFECTED) {
+            final double growth = Math.exp(growthPerMillisecond * elapsed);
+            final int population = populations[cityId];
+            for (int i = cityId * diseaseCount; i < (cityId + 1) * diseaseCount; i++) {
+                afflicted[i] = Math.min(afflicted[i] * growth, population);
+            }
+        }
+    }
+
+    private boolean isAfflicted(final int cityId) {
+        for (int i = cityId * diseaseCount; i < (cityId + 1) * diseaseCount; i++) {
+            if (afflicted[i] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Advances the current time without any flights, so that later queries
+     * include the local growth up to that time.
+     *
+     * @param newTime the new current time, which must not be before the
+     * current time.
+     */
+    public void advanceTo(final long newTime) {
+        if (newTime < time) {
+            throw new IllegalArgumentException("The simulation cannot go back in time: " + newTime + " is before " + time);
+        }
+        time = newTime;
+    }
+
+    /**
+     * Returns the current time, being the departure time of the latest
+     * flight processed or the time most recently advanced to.
+     *
+     * @return the current time in milliseconds since the epoch.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the number of flights processed.
+     *
+     * @return the number of flights processed.
+     */
+    public long getFlightCount() {
+        return flightCount;
+    }
+
+    /**
+     * Returns the number of flights skipped by {@link #run(FlightTable)} and
+     * {@link #run(FlightSource.Reader)} because they departed before the
+     * current time.
+     *
+     * @return the number of late flights.
+     */
+    public long getLateFlightCount() {
+        return lateFlightCount;
+    }
+
+    /**
+     * Returns the number of flights processed that carried a disease.
+     *
+     * @return the number of flights that carried a disease.
+     */
+    public long getInfectiousFlightCount() {
+        return infectiousFlightCount;
+    }
+
+    /**
+     * Returns the number of cities in the simulation.
+     *
+     * @return the number of cities.
+     */
+    public int getCityCount() {
+        return populations.length;
+    }
+
+    /**
+     * Returns the number of diseases in the simulation.
+     *
+     * @return the number of diseases.
+     */
+    public int getDiseaseCount() {
+        return diseaseCount;
+    }
+
+    /**
+     * Returns the name of the specified disease.
+     *
+     * @param disease the index of the disease.
+     * @return the name of the disease.
+     */
+    public String getDiseaseName(final int disease) {
+        return diseases.getName(disease);
+    }
+
+    /**
+     * Returns the time the specified city was first afflicted with any
+     * disease.
+     *
+     * @param cityId the id of the city.
+     * @return the time the city was first afflicted, the start time if it was
+     * afflicted from the start, or {@link #NEVER_INFECTED}.
+     */
+    public long getInfectionTime(final int cityId) {
+        return infectionTimes[cityId];
+    }
+
+    /**
+     * Returns the afflicted population of the specified city and disease at
+     * the current time.
+     *
+     * @param cityId the id of the city.
+     * @param disease the index of the disease.
+     * @return the afflicted population.
+     */
+    public double getAfflicted(final int cityId, final int disease) {
+        final double count = afflicted[cityId * diseaseCount + disease];
+        return count == 0 ? 0 : Math.min(count * Math.exp(growthPerMillisecond * (time - updateTimes[cityId])), populations[cityId]);
+    }
+
+    /**
+     * Returns the outbreak of the specified city at the current time, rounding
+     * each afflicted population down to a whole person.
+     *
+     * @param cityId the id of the city.
+     * @return the outbreak of the city.
+     */
+    public Outbreak getOutbreak(final int cityId) {
+        final Outbreak.Builder outbreak = new Outbreak().edit();
+        for (int disease = 0; disease < diseaseCount; disease++) {
+            final int count = (int) getAfflicted(cityId, disease);
+            if (count > 0) {
+                outbreak.spread(diseases.getName(disease), count);
+            }
+        }
+        return outbreak.build().intern();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Frontier Spread.
+ * <p>
+ * Spreads the outbreaks of a {@link PandemicNetwork} with
+ * {@link OutbreakUtilities#spreadDisease(Outbreak, int, Outbreak[], int[], int[], int[], int, int, int)},
+ * visiting only the frontier of the outbreaks: the cities that are afflicted
+ * and the cities with passengers flying in from an afflicted vertex. Every
+ * other city would spread to no disease at all, so early in an outbreak a run
+ * costs in proportion to the afflicted neighbourhood rather than the whole
+ * network.
+ * <p>
+ * Sequentially each city is spread in turn, so later cities see the already
+ * spread outbreaks of earlier ones. Synchronously every city is spread from
+ * the outbreaks at the start of the run, computed in parallel.
+ */
+final class FrontierSpread {
+
+    // The number of cities below which a fork join task computes its cities
+    // directly rather than splitting them further.
+    private static final int SPREAD_THRESHOLD = 1024;
+
+    private FrontierSpread() {
+    }
+
+    /**
+     * Spreads the specified outbreaks in place, returning the vertices whose
+     * outbreak changed in ascending order. Cities outside the frontier keep
+     * their outbreak, even if it is null.
+     */
+    static int[] spread(final PandemicNetwork network, final Outbreak[] outbreaks, final int numberOfDays, final boolean synchronous) {
+        return spread(network, network.getInboundPassengers(), outbreaks, numberOfDays, synchronous);
+    }
+
+    /**
+     * Spreads the specified outbreaks in place as above, with the specified
+     * passengers on each inbound edge of the network in place of its own.
+     */
+    static int[] spread(final PandemicNetwork network, final int[] passengers, final Outbreak[] outbreaks, final int numberOfDays, final boolean synchronous) {
+        final BitSet frontier = createFrontier(network, outbreaks);
+        int[] changed = new int[Math.max(16, frontier.cardinality())];
+        int changedCount = 0;
+        if (synchronous) {
+            final int[] cities = frontier.stream().toArray();
+            final Outbreak[] spreadOutbreaks = new Outbreak[cities.length];
+            ForkJoinPool.commonPool().invoke(new SpreadTask(network, passengers, outbreaks, cities, spreadOutbreaks, numberOfDays, 0, cities.length));
+            for (int i = 0; i < cities.length; i++) {
+                if (spreadOutbreaks[i] != outbreaks[cities[i]]) {
+                    outbreaks[cities[i]] = spreadOutbreaks[i];
+                    changed[changedCount++] = cities[i];
+                }
+            }
+        } else {
+            // A city that becomes afflicted adds its neighbours to the
+            // frontier, which are always visited later if they come after it.
+            for (int vertex = frontier.nextSetBit(0); vertex >= 0; vertex = frontier.nextSetBit(vertex + 1)) {
+                final Outbreak spreadOutbreak = spread(network, passengers, outbreaks, vertex, numberOfDays);
+                if (spreadOutbreak != outbreaks[vertex]) {
+                    if (!isAfflicted(outbreaks[vertex]) && isAfflicted(spreadOutbreak)) {
+                        addNeighbours(network, frontier, vertex);
+                    }
+                    outbreaks[vertex] = spreadOutbreak;
+                    if (changedCount == changed.length) {
+                        changed = Arrays.copyOf(changed, changedCount * 2);
+                    }
+                    changed[changedCount++] = vertex;
+                }
+            }
+        }
+        return Arrays.copyOf(changed, changedCount);
+    }
+
+    /**
+     * Returns the cities that may change when spread, indexed by vertex.
+     */
+    private static BitSet createFrontier(final PandemicNetwork network, final Outbreak[] outbreaks) {
+        final BitSet frontier = new BitSet(network.getVertexCount());
+        for (int vertex = 0; vertex < outbreaks.length; vertex++) {
+            if (isAfflicted(outbreaks[vertex])) {
+                if (network.isCity(vertex)) {
+                    frontier.set(vertex);
+                }
+                addNeighbours(network, frontier, vertex);
+            }
+        }
+        return frontier;
+    }
+
+    private static void addNeighbours(final PandemicNetwork network, final BitSet frontier, final int vertex) {
+        final int outboundEnd = network.getOutboundEnd(vertex);
+        for (int edge = network.getOutboundStart(vertex); edge < outboundEnd; edge++) {
+            final int destination = network.getOutboundDestination(edge);
+            if (network.isCity(destination)) {
+                frontier.set(destination);
+            }
+        }
+    }
+
+    static boolean isAfflicted(final Outbreak outbreak) {
+        return outbreak != null && outbreak.getNumberOfDiseases() > 0;
+    }
+
+    private static Outbreak spread(final PandemicNetwork network, final int[] passengers, final Outbreak[] outbreaks, final int vertex, final int numberOfDays) {
+        return OutbreakUtilities.spreadDisease(outbreaks[vertex], network.getPopulation(vertex),
+                outbreaks, network.getPopulations(), network.getInboundSources(), passengers,
+                network.getInboundStart(vertex), network.getInboundEnd(vertex), numberOfDays);
+    }
+
+    /**
+     * Computes the next outbreak of a range of cities from the outbreaks at
+     * the start of the run, splitting the range between fork join tasks.
+     */
+    private static final class SpreadTask extends RecursiveAction {
+
+        private final PandemicNetwork network;
+        private final int[] passengers;
+        private final Outbreak[] outbreaks;
+        private final int[] cities;
+        private final Outbreak[] spreadOutbreaks;
+        private final int numberOfDays;
+        private final int from;
+        private final int to;
+
+        private SpreadTask(final PandemicNetwork network, final int[] passengers, final Outbreak[] outbreaks, final int[] cities, final Outbreak[] spreadOutbreaks, final int numberOfDays, final int from, final int to) {
+            this.network = network;
+            this.passengers = passengers;
+            this.outbreaks = outbreaks;
+            this.cities = cities;
+            this.spreadOutbreaks = spreadOutbreaks;
+            this.numberOfDays = numberOfDays;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPREAD_THRESHOLD) {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new SpreadTask(network, passengers, outbreaks, cities, spreadOutbreaks, numberOfDays, from, mid), new SpreadTask(network, passengers, outbreaks, cities, spreadOutbreaks, numberOfDays, mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                spreadOutbreaks[i] = spread(network, passengers, outbreaks, cities[i], numberOfDays);
+            }
+        }
+    }
+}
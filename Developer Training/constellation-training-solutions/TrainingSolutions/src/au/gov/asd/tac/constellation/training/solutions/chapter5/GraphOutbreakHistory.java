@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Graph Outbreak History.
+ * <p>
+ * The {@link OutbreakHistory} of the spreads run on each graph, indexed by
+ * vertex position as in the {@link PandemicNetwork} of the graph. A history
+ * is kept only while the structure of its graph is unchanged, and it remembers
+ * the value modification counter of the outbreak attribute as it last left
+ * it, so that an outbreak edited by anything else can be detected.
+ */
+final class GraphOutbreakHistory {
+
+    private static final int CACHE_SIZE = 8;
+
+    private static final Map<String, GraphOutbreakHistory> HISTORIES = new LinkedHashMap<String, GraphOutbreakHistory>(CACHE_SIZE, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, GraphOutbreakHistory> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final long structureModificationCounter;
+    private final long attributeModificationCounter;
+    private final OutbreakHistory history;
+    private long outbreakModificationCounter;
+
+    private GraphOutbreakHistory(final GraphReadMethods graph, final OutbreakHistory history, final int outbreakAttributeId) {
+        this.structureModificationCounter = graph.getStructureModificationCounter();
+        this.attributeModificationCounter = graph.getAttributeModificationCounter();
+        this.history = history;
+        this.outbreakModificationCounter = graph.getValueModificationCounter(outbreakAttributeId);
+    }
+
+    /**
+     * The history of the specified graph, or null if it has none or its
+     * structure has changed since the history was started.
+     */
+    static GraphOutbreakHistory get(final GraphReadMethods graph) {
+        synchronized (HISTORIES) {
+            final GraphOutbreakHistory graphHistory = HISTORIES.get(graph.getId());
+            return graphHistory != null
+                    && graphHistory.structureModificationCounter == graph.getStructureModificationCounter()
+                    && graphHistory.attributeModificationCounter == graph.getAttributeModificationCounter() ? graphHistory : null;
+        }
+    }
+
+    /**
+     * Starts a new history for the specified graph with its current outbreaks
+     * as day 0, replacing any previous history.
+     */
+    static GraphOutbreakHistory start(final GraphReadMethods graph, final Outbreak[] outbreaks, final int outbreakAttributeId) {
+        final GraphOutbreakHistory graphHistory = new GraphOutbreakHistory(graph, new OutbreakHistory(outbreaks, 0), outbreakAttributeId);
+        synchronized (HISTORIES) {
+            HISTORIES.put(graph.getId(), graphHistory);
+        }
+        return graphHistory;
+    }
+
+    OutbreakHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Whether the outbreaks of the graph are still those of the current day
+     * of the history.
+     */
+    boolean isCurrent(final GraphReadMethods graph, final int outbreakAttributeId) {
+        return graph.getValueModificationCounter(outbreakAttributeId) == outbreakModificationCounter;
+    }
+
+    /**
+     * Notes that the outbreaks of the graph have been brought to the current
+     * day of the history.
+     */
+    void setCurrent(final GraphReadMethods graph, final int outbreakAttributeId) {
+        outbreakModificationCounter = graph.getValueModificationCounter(outbreakAttributeId);
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+
+/**
+ * Intervention.
+ * <p>
+ * A single scheduled action against an outbreak: treating a number of people
+ * for a disease, curing a disease outright, or banning travel on the routes of
+ * a set of cities. Each intervention takes effect at the start of its day,
+ * before that day is spread, and applies to every city matched by its
+ * {@link Selector}. Travel bans last for the rest of the simulation.
+ * Interventions are run in batches by an {@link InterventionSchedule}.
+ */
+public final class Intervention {
+
+    /**
+     * The kinds of intervention.
+     */
+    public enum Type {
+        TREAT,
+        CURE,
+        TRAVEL_BAN
+    }
+
+    /**
+     * Selects the cities an intervention applies to, either by name or by
+     * country. Names and countries are matched ignoring case.
+     */
+    public static final class Selector {
+
+        private static final Selector ALL = new Selector(null, null);
+
+        private final String cityName;
+        private final String country;
+
+        private Selector(final String cityName, final String country) {
+            this.cityName = cityName;
+            this.country = country;
+        }
+
+        /**
+         * Returns a selector matching the city with the specified name.
+         *
+         * @param cityName the name of the city.
+         * @return the selector.
+         */
+        public static Selector city(final String cityName) {
+            return new Selector(cityName, null);
+        }
+
+        /**
+         * Returns a selector matching every city in the specified country.
+         *
+         * @param country the country, as returned by {@link City#getCountry()}.
+         * @return the selector.
+         */
+        public static Selector country(final String country) {
+            return new Selector(null, country);
+        }
+
+        /**
+         * Returns a selector matching every city.
+         *
+         * @return the selector.
+         */
+        public static Selector all() {
+            return ALL;
+        }
+
+        /**
+         * Returns whether the specified city is selected.
+         *
+         * @param city the city, which may be null for vertices that are not
+         * known cities.
+         * @return true if the city is selected.
+         */
+        public boolean matches(final City city) {
+            if (this == ALL) {
+                return true;
+            }
+            if (city == null) {
+                return false;
+            }
+            return cityName != null ? cityName.equalsIgnoreCase(city.getName()) : country.equalsIgnoreCase(city.getCountry());
+        }
+
+        /**
+         * Parses a selector in the form returned by {@link #toString()}:
+         * {@code city:<name>}, {@code country:<country>} or {@code all}.
+         *
+         * @param s the text to parse.
+         * @return the selector.
+         */
+        public static Selector valueOf(final String s) {
+            final String text = s.trim();
+            if (text.equalsIgnoreCase("all")) {
+                return ALL;
+            }
+            final int colon = text.indexOf(':');
+            final String value = colon < 0 ? "" : text.substring(colon + 1).trim();
+            if (!value.isEmpty()) {
+                final String kind = text.substring(0, colon).trim();
+                if (kind.equalsIgnoreCase("city")) {
+                    return city(value);
+                } else if (kind.equalsIgnoreCase("country")) {
+                    return country(value);
+                }
+            }
+            throw new IllegalArgumentException("Expected city:<name>, country:<country> or all but found: " + text);
+        }
+
+        @Override
+        public String toString() {
+            return this == ALL ? "all" : cityName != null ? "city:" + cityName : "country:" + country;
+        }
+    }
+
+    private final int day;
+    private final Type type;
+    private final Selector selector;
+    private final Selector destinationSelector;
+    private final String diseaseName;
+    private final int count;
+
+    private Intervention(final int day, final Type type, final Selector selector, final Selector destinationSelector, final String diseaseName, final int count) {
+        if (day < 1) {
+            throw new IllegalArgumentException("Interventions must be scheduled on day 1 or later");
+        }
+        this.day = day;
+        this.type = type;
+        this.selector = selector;
+        this.destinationSelector = destinationSelector;
+        this.diseaseName = diseaseName;
+        this.count = count;
+    }
+
+    /**
+     * Returns an intervention treating up to the specified number of people
+     * for a disease in each selected city.
+     *
+     * @param day the day the intervention takes effect.
+     * @param selector the cities to treat.
+     * @param diseaseName the disease to treat.
+     * @param count the number of people to treat in each city.
+     * @return the intervention.
+     */
+    public static Intervention treat(final int day, final Selector selector, final String diseaseName, final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("The number of people treated must not be negative");
+        }
+        return new Intervention(day, Type.TREAT, selector, null, diseaseName, count);
+    }
+
+    /**
+     * Returns an intervention curing a disease in each selected city.
+     *
+     * @param day the day the intervention takes effect.
+     * @param selector the cities to cure.
+     * @param diseaseName the disease to cure.
+     * @return the intervention.
+     */
+    public static Intervention cure(final int day, final Selector selector, final String diseaseName) {
+        return new Intervention(day, Type.CURE, selector, null, diseaseName, 0);
+    }
+
+    /**
+     * Returns an intervention banning travel on every route into or out of
+     * the selected cities.
+     *
+     * @param day the day the ban takes effect.
+     * @param selector the cities to isolate.
+     * @return the intervention.
+     */
+    public static Intervention banTravel(final int day, final Selector selector) {
+        return new Intervention(day, Type.TRAVEL_BAN, selector, null, null, 0);
+    }
+
+    /**
+     * Returns an intervention banning travel on the routes from the selected
+     * source cities to the selected destination cities, in that direction
+     * only.
+     *
+     * @param day the day the ban takes effect.
+     * @param sourceSelector the cities the banned routes depart from.
+     * @param destinationSelector the cities the banned routes arrive in.
+     * @return the intervention.
+     */
+    public static Intervention banTravel(final int day, final Selector sourceSelector, final Selector destinationSelector) {
+        return new Intervention(day, Type.TRAVEL_BAN, sourceSelector, destinationSelector, null, 0);
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the selected cities, which for a travel ban between two sets of
+     * cities are the sources of the banned routes.
+     *
+     * @return the selector of the intervention.
+     */
+    public Selector getSelector() {
+        return selector;
+    }
+
+    /**
+     * Returns the destinations of the banned routes, or null if the
+     * intervention is not a travel ban between two sets of cities.
+     *
+     * @return the destination selector of the intervention, or null.
+     */
+    public Selector getDestinationSelector() {
+        return destinationSelector;
+    }
+
+    /**
+     * Returns the disease treated or cured, or null for a travel ban.
+     *
+     * @return the name of the disease, or null.
+     */
+    public String getDiseaseName() {
+        return diseaseName;
+    }
+
+    /**
+     * Returns the number of people treated in each city, or 0 if the
+     * intervention is not a treatment.
+     *
+     * @return the number of people treated.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Parses an intervention in the form returned by {@link #toString()}, with
+     * fields separated by commas:
+     * <ul>
+     * <li>{@code <day>, treat, <selector>, <disease>, <count>}</li>
+     * <li>{@code <day>, cure, <selector>, <disease>}</li>
+     * <li>{@code <day>, ban, <selector>} or
+     * {@code <day>, ban, <source selector>, <destination selector>}</li>
+     * </ul>
+     * where each selector is parsed by {@link Selector#valueOf(String)}.
+     *
+     * @param s the text to parse.
+     * @return the intervention.
+     */
+    public static Intervention valueOf(final String s) {
+        final String[] fields = s.split(",", -1);
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = fields[i].trim();
+        }
+        if (fields.length < 3) {
+            throw new IllegalArgumentException("Expected a day, an action and a selector but found: " + s.trim());
+        }
+        final int day = parseInt(fields[0], "day");
+        final Selector selector = Selector.valueOf(fields[2]);
+        switch (fields[1].toLowerCase()) {
+            case "treat":
+                checkFieldCount(fields, 5, "treat");
+                return treat(day, selector, fields[3], parseInt(fields[4], "number of people treated"));
+            case "cure":
+                checkFieldCount(fields, 4, "cure");
+                return cure(day, selector, fields[3]);
+            case "ban":
+                if (fields.length == 3) {
+                    return banTravel(day, selector);
+                }
+                checkFieldCount(fields, 4, "ban");
+                return banTravel(day, selector, Selector.valueOf(fields[3]));
+            default:
+                throw new IllegalArgumentException("Expected treat, cure or ban but found: " + fields[1]);
+        }
+    }
+
+    private static void checkFieldCount(final String[] fields, final int expected, final String action) {
+        if (fields.length != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " fields for " + action + " but found " + fields.length);
+        }
+    }
+
+    private static int parseInt(final String field, final String name) {
+        try {
+            return Integer.parseInt(field);
+        } catch (final NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + field);
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case TREAT:
+                return day + ", treat, " + selector + ", " + diseaseName + ", " + count;
+            case CURE:
+                return day + ", cure, " + selector + ", " + diseaseName;
+            default:
+                return day + ", ban, " + selector + (destinationSelector == null ? "" : ", " + destinationSelector);
+        }
+    }
+}
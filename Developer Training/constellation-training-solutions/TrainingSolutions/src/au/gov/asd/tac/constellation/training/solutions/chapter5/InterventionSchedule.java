@@ -0,0 +1,309 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities;
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/**
+ * Intervention Schedule.
+ * <p>
+ * A list of {@link Intervention interventions} compiled against a
+ * {@link PandemicNetwork}, so that a simulation can apply each day's
+ * interventions in a single pass over flat arrays. The selectors of every
+ * intervention are resolved to vertices once, when the schedule is built.
+ * The treatments and cures of each day are then held sorted by vertex, so
+ * applying them rebuilds the outbreak of each affected vertex once however
+ * many interventions name it. The travel bans in effect on a day are applied
+ * in one pass over the edges of the network, giving the passengers to spread
+ * with that day.
+ * <p>
+ * A schedule caches the passengers of the most recent travel bans it
+ * computed, so it should only be used by one simulation at a time.
+ */
+public final class InterventionSchedule {
+
+    // The count of a cure, as opposed to a treatment.
+    private static final int CURE = -1;
+
+    private final PandemicNetwork network;
+    private final int[] days;
+    private final Treatments[] treatments;
+    private final int[] banDays;
+    private final List<List<Ban>> bans;
+
+    private int cachedBanCount = 0;
+    private int[] cachedPassengers;
+
+    /**
+     * The treatments and cures of one day, sorted by vertex.
+     */
+    private static final class Treatments {
+
+        private final int[] vertices;
+        private final String[] diseaseNames;
+        private final int[] counts;
+
+        private Treatments(final int[] vertices, final String[] diseaseNames, final int[] counts) {
+            this.vertices = vertices;
+            this.diseaseNames = diseaseNames;
+            this.counts = counts;
+        }
+    }
+
+    /**
+     * The routes closed by a travel ban, from the selected sources to the
+     * selected destinations, where null selects every vertex.
+     */
+    private static final class Ban {
+
+        private final boolean[] sources;
+        private final boolean[] destinations;
+
+        private Ban(final boolean[] sources, final boolean[] destinations) {
+            this.sources = sources;
+            this.destinations = destinations;
+        }
+
+        private boolean isBanned(final int source, final int destination) {
+            return (sources == null || sources[source]) && (destinations == null || destinations[destination]);
+        }
+    }
+
+    /**
+     * Compiles the specified interventions against a network.
+     *
+     * @param network the network the interventions will be applied to.
+     * @param interventions the interventions, in the order that interventions
+     * on the same day and vertex should be applied.
+     * @param cities returns the city each vertex represents, or null if it is
+     * not a known city.
+     */
+    public InterventionSchedule(final PandemicNetwork network, final List<Intervention> interventions, final IntFunction<City> cities) {
+        this.network = network;
+        this.cachedPassengers = network.getInboundPassengers();
+
+        final City[] vertexCities = new City[network.getVertexCount()];
+        for (int city = 0; city < network.getCityCount(); city++) {
+            final int vertex = network.getCity(city);
+            vertexCities[vertex] = cities.apply(vertex);
+        }
+
+        final TreeMap<Integer, List<Intervention>> treatmentsByDay = new TreeMap<>();
+        final TreeMap<Integer, List<Ban>> bansByDay = new TreeMap<>();
+        for (final Intervention intervention : interventions) {
+            if (intervention.getType() == Intervention.Type.TRAVEL_BAN) {
+                final List<Ban> dayBans = bansByDay.computeIfAbsent(intervention.getDay(), day -> new ArrayList<>());
+                final boolean[] selected = select(vertexCities, intervention.getSelector());
+                if (intervention.getDestinationSelector() == null) {
+                    dayBans.add(new Ban(selected, null));
+                    dayBans.add(new Ban(null, selected));
+                } else {
+                    dayBans.add(new Ban(selected, select(vertexCities, intervention.getDestinationSelector())));
+                }
+            } else {
+                treatmentsByDay.computeIfAbsent(intervention.getDay(), day -> new ArrayList<>()).add(intervention);
+            }
+        }
+
+        days = treatmentsByDay.keySet().stream().mapToInt(Integer::intValue).toArray();
+        treatments = new Treatments[days.length];
+        for (int i = 0; i < days.length; i++) {
+            treatments[i] = compileTreatments(vertexCities, treatmentsByDay.get(days[i]));
+        }
+        banDays = bansByDay.keySet().stream().mapToInt(Integer::intValue).toArray();
+        bans = new ArrayList<>(bansByDay.values());
+    }
+
+    /**
+     * Compiles the specified interventions against a network built from the
+     * cities of {@link OutbreakUtilities} by
+     * {@link PandemicNetwork#forCities(long, long)}.
+     *
+     * @param network the network the interventions will be applied to.
+     * @param interventions the interventions.
+     * @return the schedule.
+     */
+    public static InterventionSchedule forCities(final PandemicNetwork network, final List<Intervention> interventions) {
+        return new InterventionSchedule(network, interventions, OutbreakUtilities::getCity);
+    }
+
+    private static boolean[] select(final City[] vertexCities, final Intervention.Selector selector) {
+        final boolean[] selected = new boolean[vertexCities.length];
+        for (int vertex = 0; vertex < vertexCities.length; vertex++) {
+            selected[vertex] = vertexCities[vertex] != null && selector.matches(vertexCities[vertex]);
+        }
+        return selected;
+    }
+
+    private static Treatments compileTreatments(final City[] vertexCities, final List<Intervention> dayInterventions) {
+        // Each key holds a vertex above the position of the intervention in
+        // the day, so sorting groups the interventions by vertex and keeps
+        // them in schedule order within each vertex.
+        long[] keys = new long[16];
+        int keyCount = 0;
+        for (int i = 0; i < dayInterventions.size(); i++) {
+            final Intervention.Selector selector = dayInterventions.get(i).getSelector();
+            for (int vertex = 0; vertex < vertexCities.length; vertex++) {
+                if (vertexCities[vertex] != null && selector.matches(vertexCities[vertex])) {
+                    if (keyCount == keys.length) {
+                        keys = Arrays.copyOf(keys, keyCount * 2);
+                    }
+                    keys[keyCount++] = ((long) vertex << 32) | i;
+                }
+            }
+        }
+        Arrays.sort(keys, 0, keyCount);
+
+        final int[] vertices = new int[keyCount];
+        final String[] diseaseNames = new String[keyCount];
+        final int[] counts = new int[keyCount];
+        for (int k = 0; k < keyCount; k++) {
+            final Intervention intervention = dayInterventions.get((int) keys[k]);
+            vertices[k] = (int) (keys[k] >>> 32);
+            diseaseNames[k] = intervention.getDiseaseName();
+            counts[k] = intervention.getType() == Intervention.Type.CURE ? CURE : intervention.getCount();
+        }
+        return new Treatments(vertices, diseaseNames, counts);
+    }
+
+    /**
+     * Returns the network the schedule was compiled against.
+     *
+     * @return the network.
+     */
+    public PandemicNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Returns the first day on or after the specified day with any
+     * intervention.
+     *
+     * @param day the day to search from.
+     * @return the next day with an intervention, or
+     * {@link Integer#MAX_VALUE} if there are none.
+     */
+    public int getNextDay(final int day) {
+        int next = Integer.MAX_VALUE;
+        int index = Arrays.binarySearch(days, day);
+        index = index < 0 ? -index - 1 : index;
+        if (index < days.length) {
+            next = days[index];
+        }
+        index = Arrays.binarySearch(banDays, day);
+        index = index < 0 ? -index - 1 : index;
+        if (index < banDays.length) {
+            next = Math.min(next, banDays[index]);
+        }
+        return next;
+    }
+
+    /**
+     * Applies the treatments and cures scheduled for the specified day to the
+     * specified outbreaks in place. Treatment never takes the afflicted
+     * population of a disease below zero, and vertices without an outbreak
+     * are left alone.
+     *
+     * @param day the day.
+     * @param outbreaks the outbreak of every vertex in the network.
+     * @return the vertices whose outbreak changed, in ascending order.
+     */
+    public int[] apply(final int day, final Outbreak[] outbreaks) {
+        final int index = Arrays.binarySearch(days, day);
+        if (index < 0) {
+            return new int[0];
+        }
+        final Treatments dayTreatments = treatments[index];
+        final int[] vertices = dayTreatments.vertices;
+        final int[] changed = new int[vertices.length];
+        int changedCount = 0;
+        int k = 0;
+        while (k < vertices.length) {
+            final int vertex = vertices[k];
+            final Outbreak outbreak = outbreaks[vertex];
+            if (outbreak == null) {
+                while (k < vertices.length && vertices[k] == vertex) {
+                    k++;
+                }
+                continue;
+            }
+            final Outbreak.Builder treated = outbreak.edit();
+            while (k < vertices.length && vertices[k] == vertex) {
+                final String diseaseName = dayTreatments.diseaseNames[k];
+                if (dayTreatments.counts[k] == CURE) {
+                    treated.cure(diseaseName);
+                } else {
+                    treated.treat(diseaseName, Math.min(dayTreatments.counts[k], treated.getAffectedPopulation(diseaseName)));
+                }
+                k++;
+            }
+            final Outbreak treatedOutbreak = treated.build().intern();
+            if (!treatedOutbreak.equals(outbreak)) {
+                outbreaks[vertex] = treatedOutbreak;
+                changed[changedCount++] = vertex;
+            }
+        }
+        return Arrays.copyOf(changed, changedCount);
+    }
+
+    /**
+     * Returns the passengers on every inbound edge of the network on the
+     * specified day, with the routes banned on or before that day carrying
+     * none.
+     *
+     * @param day the day.
+     * @return the passengers on every inbound edge, indexed by edge. The
+     * array may be shared and must not be modified.
+     */
+    public int[] getPassengers(final int day) {
+        int banCount = Arrays.binarySearch(banDays, day);
+        banCount = banCount < 0 ? -banCount - 1 : banCount + 1;
+        if (banCount != cachedBanCount) {
+            cachedPassengers = banCount == 0 ? network.getInboundPassengers() : computePassengers(banCount);
+            cachedBanCount = banCount;
+        }
+        return cachedPassengers;
+    }
+
+    private int[] computePassengers(final int banCount) {
+        final List<Ban> activeBans = new ArrayList<>();
+        for (int i = 0; i < banCount; i++) {
+            activeBans.addAll(bans.get(i));
+        }
+        final int[] inboundSources = network.getInboundSources();
+        final int[] passengers = network.getInboundPassengers().clone();
+        for (int vertex = 0; vertex < network.getVertexCount(); vertex++) {
+            final int inboundEnd = network.getInboundEnd(vertex);
+            for (int edge = network.getInboundStart(vertex); edge < inboundEnd; edge++) {
+                final int source = inboundSources[edge];
+                for (final Ban ban : activeBans) {
+                    if (ban.isBanned(source, vertex)) {
+                        passengers[edge] = 0;
+                        break;
+                    }
+                }
+            }
+        }
+        return passengers;
+    }
+}
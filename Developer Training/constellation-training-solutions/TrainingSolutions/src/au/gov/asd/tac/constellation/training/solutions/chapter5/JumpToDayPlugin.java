@@ -0,0 +1,100 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
+import au.gov.asd.tac.constellation.plugins.Plugin;
+import au.gov.asd.tac.constellation.plugins.PluginException;
+import au.gov.asd.tac.constellation.plugins.PluginInfo;
+import au.gov.asd.tac.constellation.plugins.PluginInteraction;
+import au.gov.asd.tac.constellation.plugins.PluginNotificationLevel;
+import au.gov.asd.tac.constellation.plugins.PluginType;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameter;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType.IntegerParameterValue;
+import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import au.gov.asd.tac.constellation.training.solutions.chapter3.PandemicConcept;
+import java.util.Arrays;
+import org.openide.util.NbBundle;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Jump To Day Plugin.
+ * <p>
+ * Returns the outbreaks of the graph to any day recorded by
+ * {@link SpreadInfectionPlugin}, earlier or later than the current one, from
+ * the {@link OutbreakHistory} of the graph. Only the cities whose outbreak on
+ * that day differs from their current outbreak are written. If the outbreaks
+ * have been edited since the history last wrote them, every city is compared
+ * with its outbreak on that day instead.
+ */
+@ServiceProvider(service = Plugin.class)
+@NbBundle.Messages("JumpToDayPlugin=Jump To Day")
+@PluginInfo(pluginType = PluginType.NONE, tags = {"OUTBREAK"})
+public class JumpToDayPlugin extends SimpleEditPlugin {
+
+    public static final String DAY_PARAMETER_ID = PluginParameter.buildId(JumpToDayPlugin.class, "day");
+    private static final String DAY_PARAMETER_LABEL = "Day";
+
+    @Override
+    public PluginParameters createParameters() {
+        final PluginParameters parameters = new PluginParameters();
+        final PluginParameter<IntegerParameterValue> dayParameter = IntegerParameterType.build(DAY_PARAMETER_ID, new IntegerParameterValue(0));
+        dayParameter.setName(DAY_PARAMETER_LABEL);
+        dayParameter.setDescription("The day to return to, counted in days spread since the outbreaks were last changed by anything other than a spread");
+        IntegerParameterType.setMinimum(dayParameter, 0);
+        parameters.addParameter(dayParameter);
+        return parameters;
+    }
+
+    @Override
+    protected void edit(final GraphWriteMethods writableGraph, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException, PluginException {
+        final int day = parameters.getIntegerValue(DAY_PARAMETER_ID);
+        final int outbreakAttributeId = PandemicConcept.VertexAttribute.OUTBREAK.get(writableGraph);
+        final PandemicNetwork network = PandemicNetwork.get(writableGraph);
+        if (outbreakAttributeId != Graph.NOT_FOUND && network != null) {
+            final GraphOutbreakHistory graphHistory = GraphOutbreakHistory.get(writableGraph);
+            if (graphHistory == null) {
+                throw new PluginException(PluginNotificationLevel.ERROR, "There are no recorded days for this graph; run Spread Infection first");
+            }
+            final OutbreakHistory history = graphHistory.getHistory();
+            if (!history.hasCheckpoint(day)) {
+                throw new PluginException(PluginNotificationLevel.ERROR, "Day " + day + " has not been recorded; the recorded days are " + Arrays.toString(history.getDays()));
+            }
+
+            final boolean current = graphHistory.isCurrent(writableGraph, outbreakAttributeId);
+            final int[] changed = history.jumpTo(day);
+            if (current) {
+                for (final int vertex : changed) {
+                    writableGraph.setObjectValue(outbreakAttributeId, network.getVertexId(vertex), history.getOutbreak(vertex));
+                }
+            } else {
+                for (int vertex = 0; vertex < network.getVertexCount(); vertex++) {
+                    final int vertexId = network.getVertexId(vertex);
+                    final Outbreak outbreak = history.getOutbreak(vertex);
+                    final Outbreak graphOutbreak = writableGraph.getObjectValue(outbreakAttributeId, vertexId);
+                    if (outbreak != graphOutbreak && (outbreak == null || !outbreak.equals(graphOutbreak))) {
+                        writableGraph.setObjectValue(outbreakAttributeId, vertexId, outbreak);
+                    }
+                }
+            }
+            graphHistory.setCurrent(writableGraph, outbreakAttributeId);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Monte Carlo Spread.
+ * <p>
+ * Runs many stochastic replicates of the daily spread model used by
+ * {@link SpreadInfectionPlugin} over a {@link PandemicNetwork}, and records
+ * the spread of outcomes across the replicates. Each day, in every city and
+ * for every disease:
+ * <ul>
+ * <li>the afflicted population grows by a binomial draw with one trial per
+ * afflicted person and the local spread factor as the probability of
+ * success; and</li>
+ * <li>each inbound edge imports a Poisson number of afflicted people, with a
+ * mean of the passengers on the edge times the afflicted share of the source's
+ * population on the previous day.</li>
+ * </ul>
+ * The afflicted population of a city never exceeds its population. Only
+ * cities are advanced; other vertices keep their initial outbreaks and act
+ * only as sources of infection.
+ * <p>
+ * Every replicate holds its own state and its own {@link SplittableRandom},
+ * split in order from a single seed, so replicates share no mutable state and
+ * a run is reproducible from its seed however the replicates are scheduled.
+ * The replicates advance one day at a time in parallel on the common
+ * {@link ForkJoinPool}, after which the lower percentile, median and upper
+ * percentile of each city and disease across the replicates are recorded for
+ * that day. The bands of every day are kept, costing three ints per city,
+ * disease and day.
+ */
+public final class MonteCarloSpread {
+
+    public static final double LOWER_PERCENTILE = 0.05;
+    public static final double UPPER_PERCENTILE = 0.95;
+
+    // Draws with a mean above this are approximated by a normal distribution.
+    private static final double NORMAL_APPROXIMATION_THRESHOLD = 30;
+
+    private final PandemicNetwork network;
+    private final DiseaseIndex diseases;
+    private final int diseaseCount;
+    private final int[] initialAfflicted;
+    private final int[] cityNumbers;
+
+    private final double localSpreadFactor;
+    private final double[] edgeRates;
+
+    private final int[][] afflicted;
+    private final SplittableRandom[] randoms;
+    private final int[][] replicateScratch;
+    private final double[][] importationScratch;
+    private final int[][] percentileScratch;
+    private final int lowerRank;
+    private final int medianRank;
+    private final int upperRank;
+
+    private final List<int[]> lowerBands = new ArrayList<>();
+    private final List<int[]> medianBands = new ArrayList<>();
+    private final List<int[]> upperBands = new ArrayList<>();
+
+    /**
+     * Creates a set of replicates seeded with the specified outbreaks.
+     *
+     * @param network the network to simulate.
+     * @param outbreaks the initial outbreak of every vertex in the network,
+     * which may be null.
+     * @param localSpreadFactor the probability that each afflicted person
+     * afflicts another person in their city each day.
+     * @param travelScale the factor applied to the passengers on every inbound
+     * edge.
+     * @param replicates the number of replicates.
+     * @param seed the seed from which the random number generator of every
+     * replicate is split.
+     */
+    public MonteCarloSpread(final PandemicNetwork network, final Outbreak[] outbreaks, final double localSpreadFactor, final double travelScale, final int replicates, final long seed) {
+        if (localSpreadFactor < 0 || localSpreadFactor > 1 || travelScale < 0 || replicates < 1) {
+            throw new IllegalArgumentException("The local spread factor must be between 0 and 1, the travel scale must not be negative and there must be at least one replicate");
+        }
+        this.network = network;
+        this.localSpreadFactor = localSpreadFactor;
+
+        diseases = new DiseaseIndex(outbreaks);
+        diseaseCount = diseases.size();
+        initialAfflicted = diseases.getCounts(outbreaks, network.getPopulations());
+
+        cityNumbers = new int[network.getVertexCount()];
+        Arrays.fill(cityNumbers, -1);
+        for (int city = 0; city < network.getCityCount(); city++) {
+            cityNumbers[network.getCity(city)] = city;
+        }
+
+        edgeRates = new double[network.getEdgeCount()];
+        for (int edge = 0; edge < edgeRates.length; edge++) {
+            final int population = network.getPopulation(network.getInboundSource(edge));
+            edgeRates[edge] = population > 0 ? travelScale * network.getInboundPassengers(edge) / population : 0;
+        }
+
+        afflicted = new int[replicates][];
+        randoms = new SplittableRandom[replicates];
+        final SplittableRandom root = new SplittableRandom(seed);
+        for (int replicate = 0; replicate < replicates; replicate++) {
+            afflicted[replicate] = initialAfflicted.clone();
+            randoms[replicate] = root.split();
+        }
+
+        // Work is dealt out in a few more chunks than there are threads, each
+        // with its own scratch array, to balance the load without sharing.
+        final int chunkCount = Math.min(replicates, 4 * ForkJoinPool.getCommonPoolParallelism());
+        replicateScratch = new int[chunkCount][initialAfflicted.length];
+        importationScratch = new double[chunkCount][diseaseCount];
+        percentileScratch = new int[chunkCount][replicates];
+        lowerRank = rank(LOWER_PERCENTILE, replicates);
+        medianRank = rank(0.5, replicates);
+        upperRank = rank(UPPER_PERCENTILE, replicates);
+    }
+
+    private static int rank(final double percentile, final int replicates) {
+        return Math.max(0, (int) Math.ceil(percentile * replicates) - 1);
+    }
+
+    /**
+     * Advances every replicate by one day and records the bands for the day.
+     */
+    public void step() {
+        final int chunkCount = replicateScratch.length;
+        IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+            for (int replicate = chunk; replicate < afflicted.length; replicate += chunkCount) {
+                stepReplicate(afflicted[replicate], randoms[replicate], replicateScratch[chunk], importationScratch[chunk]);
+            }
+        });
+
+        final int cityCount = network.getCityCount();
+        final int[] lower = new int[cityCount * diseaseCount];
+        final int[] median = new int[lower.length];
+        final int[] upper = new int[lower.length];
+        IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+            final int[] values = percentileScratch[chunk];
+            for (int city = chunk; city < cityCount; city += chunkCount) {
+                final int vertexBase = network.getCity(city) * diseaseCount;
+                for (int disease = 0, i = city * diseaseCount; disease < diseaseCount; disease++, i++) {
+                    boolean identical = true;
+                    for (int replicate = 0; replicate < values.length; replicate++) {
+                        values[replicate] = afflicted[replicate][vertexBase + disease];
+                        identical &= values[replicate] == values[0];
+                    }
+                    if (!identical) {
+                        Arrays.sort(values);
+                    }
+                    lower[i] = values[lowerRank];
+                    median[i] = values[medianRank];
+                    upper[i] = values[upperRank];
+                }
+            }
+        });
+        lowerBands.add(lower);
+        medianBands.add(median);
+        upperBands.add(upper);
+    }
+
+    private void stepReplicate(final int[] current, final SplittableRandom random, final int[] next, final double[] importations) {
+        final int[] populations = network.getPopulations();
+        final int[] inboundSources = network.getInboundSources();
+        for (int vertex = 0; vertex < populations.length; vertex++) {
+            final int base = vertex * diseaseCount;
+            final int population = populations[vertex];
+            if (population <= 0 || !network.isCity(vertex)) {
+                System.arraycopy(current, base, next, base, diseaseCount);
+                continue;
+            }
+
+            // The sum of the Poisson importations over every inbound edge is
+            // itself Poisson, so only one draw is needed per disease.
+            Arrays.fill(importations, 0);
+            final int inboundEnd = network.getInboundEnd(vertex);
+            for (int edge = network.getInboundStart(vertex); edge < inboundEnd; edge++) {
+                final double rate = edgeRates[edge];
+                final int sourceBase = inboundSources[edge] * diseaseCount;
+                for (int disease = 0; disease < diseaseCount; disease++) {
+                    importations[disease] += rate * current[sourceBase + disease];
+                }
+            }
+            for (int disease = 0; disease < diseaseCount; disease++) {
+                final int count = current[base + disease];
+                next[base + disease] = (int) Math.min(population, count + binomial(random, count, localSpreadFactor) + poisson(random, importations[disease]));
+            }
+        }
+        System.arraycopy(next, 0, current, 0, current.length);
+    }
+
+    private static long binomial(final SplittableRandom random, final int trials, final double probability) {
+        if (trials == 0 || probability <= 0) {
+            return 0;
+        } else if (probability >= 1) {
+            return trials;
+        }
+        final double mean = trials * probability;
+        if (mean > NORMAL_APPROXIMATION_THRESHOLD) {
+            final long draw = Math.round(mean + Math.sqrt(mean * (1 - probability)) * random.nextGaussian());
+            return Math.max(0, Math.min(trials, draw));
+        }
+
+        // Count the successes by jumping between them with geometric gaps,
+        // which takes time proportional to the mean rather than the trials.
+        final double logFailure = Math.log1p(-probability);
+        long successes = 0;
+        double trial = 0;
+        while (true) {
+            trial += Math.floor(Math.log(1 - random.nextDouble()) / logFailure) + 1;
+            if (trial > trials) {
+                return successes;
+            }
+            successes++;
+        }
+    }
+
+    private static long poisson(final SplittableRandom random, final double mean) {
+        if (mean <= 0) {
+            return 0;
+        } else if (mean > NORMAL_APPROXIMATION_THRESHOLD) {
+            return Math.max(0, Math.round(mean + Math.sqrt(mean) * random.nextGaussian()));
+        }
+        final double limit = Math.exp(-mean);
+        long events = 0;
+        double product = random.nextDouble();
+        while (product > limit) {
+            events++;
+            product *= random.nextDouble();
+        }
+        return events;
+    }
+
+    /**
+     * Advances every replicate by the specified number of days.
+     *
+     * @param days the number of days.
+     */
+    public void run(final int days) {
+        for (int i = 0; i < days; i++) {
+            step();
+        }
+    }
+
+    /**
+     * Returns the number of days the replicates have been advanced.
+     *
+     * @return the current day.
+     */
+    public int getDay() {
+        return medianBands.size();
+    }
+
+    /**
+     * Returns the number of replicates.
+     *
+     * @return the number of replicates.
+     */
+    public int getReplicateCount() {
+        return afflicted.length;
+    }
+
+    /**
+     * Returns the number of diseases in the simulation.
+     *
+     * @return the number of diseases.
+     */
+    public int getDiseaseCount() {
+        return diseaseCount;
+    }
+
+    /**
+     * Returns the name of the specified disease.
+     *
+     * @param disease the index of the disease.
+     * @return the name of the disease.
+     */
+    public String getDiseaseName(final int disease) {
+        return diseases.getName(disease);
+    }
+
+    /**
+     * Returns the {@link #LOWER_PERCENTILE} of the afflicted population of the
+     * specified vertex and disease across the replicates at the end of the
+     * specified day.
+     *
+     * @param day the day, from 1 to {@link #getDay()}.
+     * @param vertex the index of the vertex.
+     * @param disease the index of the disease.
+     * @return the lower percentile of the afflicted population.
+     */
+    public int getLower(final int day, final int vertex, final int disease) {
+        return getBand(lowerBands, day, vertex, disease);
+    }
+
+    /**
+     * Returns the median of the afflicted population of the specified vertex
+     * and disease across the replicates at the end of the specified day.
+     *
+     * @param day the day, from 1 to {@link #getDay()}.
+     * @param vertex the index of the vertex.
+     * @param disease the index of the disease.
+     * @return the median of the afflicted population.
+     */
+    public int getMedian(final int day, final int vertex, final int disease) {
+        return getBand(medianBands, day, vertex, disease);
+    }
+
+    /**
+     * Returns the {@link #UPPER_PERCENTILE} of the afflicted population of the
+     * specified vertex and disease across the replicates at the end of the
+     * specified day.
+     *
+     * @param day the day, from 1 to {@link #getDay()}.
+     * @param vertex the index of the vertex.
+     * @param disease the index of the disease.
+     * @return the upper percentile of the afflicted population.
+     */
+    public int getUpper(final int day, final int vertex, final int disease) {
+        return getBand(upperBands, day, vertex, disease);
+    }
+
+    private int getBand(final List<int[]> bands, final int day, final int vertex, final int disease) {
+        final int city = cityNumbers[vertex];
+        return city < 0 ? initialAfflicted[vertex * diseaseCount + disease] : bands.get(day - 1)[city * diseaseCount + disease];
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
+import au.gov.asd.tac.constellation.graph.attribute.StringAttributeDescription;
+import au.gov.asd.tac.constellation.plugins.Plugin;
+import au.gov.asd.tac.constellation.plugins.PluginException;
+import au.gov.asd.tac.constellation.plugins.PluginInfo;
+import au.gov.asd.tac.constellation.plugins.PluginInteraction;
+import au.gov.asd.tac.constellation.plugins.PluginNotificationLevel;
+import au.gov.asd.tac.constellation.plugins.PluginType;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameter;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType.IntegerParameterValue;
+import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities;
+import au.gov.asd.tac.constellation.training.solutions.chapter3.PandemicConcept;
+import org.openide.util.NbBundle;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Monte Carlo Spread Plugin.
+ * <p>
+ * Runs stochastic replicates of the spread of the outbreaks in the graph using
+ * a {@link MonteCarloSpread}, without changing the outbreaks themselves. For
+ * each disease, three vertex attributes are added holding the 5th percentile,
+ * median and 95th percentile of each city's afflicted population across the
+ * replicates, as a comma separated list with one value for each simulated
+ * day.
+ */
+@ServiceProvider(service = Plugin.class)
+@NbBundle.Messages("MonteCarloSpreadPlugin=Simulate Spread Percentiles")
+@PluginInfo(pluginType = PluginType.NONE, tags = {"OUTBREAK"})
+public class MonteCarloSpreadPlugin extends SimpleEditPlugin {
+
+    public static final String NUMBER_OF_DAYS_PARAMETER_ID = PluginParameter.buildId(MonteCarloSpreadPlugin.class, "num_days");
+    private static final String NUMBER_OF_DAYS_PARAMETER_LABEL = "Number of Days";
+    public static final String REPLICATES_PARAMETER_ID = PluginParameter.buildId(MonteCarloSpreadPlugin.class, "replicates");
+    private static final String REPLICATES_PARAMETER_LABEL = "Replicates";
+    public static final String SEED_PARAMETER_ID = PluginParameter.buildId(MonteCarloSpreadPlugin.class, "seed");
+    private static final String SEED_PARAMETER_LABEL = "Random Seed";
+
+    @Override
+    public PluginParameters createParameters() {
+        final PluginParameters parameters = new PluginParameters();
+
+        final PluginParameter<IntegerParameterValue> daysParameter = IntegerParameterType.build(NUMBER_OF_DAYS_PARAMETER_ID, new IntegerParameterValue(30));
+        daysParameter.setName(NUMBER_OF_DAYS_PARAMETER_LABEL);
+        IntegerParameterType.setMinimum(daysParameter, 1);
+        parameters.addParameter(daysParameter);
+
+        final PluginParameter<IntegerParameterValue> replicatesParameter = IntegerParameterType.build(REPLICATES_PARAMETER_ID, new IntegerParameterValue(100));
+        replicatesParameter.setName(REPLICATES_PARAMETER_LABEL);
+        replicatesParameter.setDescription("The number of independent runs of the simulation to take percentiles across");
+        IntegerParameterType.setMinimum(replicatesParameter, 1);
+        parameters.addParameter(replicatesParameter);
+
+        final PluginParameter<IntegerParameterValue> seedParameter = IntegerParameterType.build(SEED_PARAMETER_ID, new IntegerParameterValue(0));
+        seedParameter.setName(SEED_PARAMETER_LABEL);
+        seedParameter.setDescription("Runs with the same seed on the same graph give the same results");
+        parameters.addParameter(seedParameter);
+
+        return parameters;
+    }
+
+    @Override
+    protected void edit(final GraphWriteMethods writableGraph, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException, PluginException {
+        final int numberOfDays = parameters.getIntegerValue(NUMBER_OF_DAYS_PARAMETER_ID);
+        final int replicates = parameters.getIntegerValue(REPLICATES_PARAMETER_ID);
+        final int seed = parameters.getIntegerValue(SEED_PARAMETER_ID);
+
+        final int outbreakAttributeId = PandemicConcept.VertexAttribute.OUTBREAK.get(writableGraph);
+        final PandemicNetwork network = PandemicNetwork.get(writableGraph);
+        if (outbreakAttributeId != Graph.NOT_FOUND && network != null) {
+            final Outbreak[] outbreaks = network.readOutbreaks(writableGraph, outbreakAttributeId);
+            final MonteCarloSpread spread;
+            try {
+                spread = new MonteCarloSpread(network, outbreaks, OutbreakUtilities.DAILY_LOCAL_SPREAD_FACTOR, 1, replicates, seed);
+            } catch (final IllegalArgumentException ex) {
+                throw new PluginException(PluginNotificationLevel.ERROR, ex.getMessage());
+            }
+
+            for (int day = 0; day < numberOfDays; day++) {
+                interaction.setProgress(day, numberOfDays, "Simulating day " + (day + 1) + " of " + numberOfDays, true);
+                spread.step();
+            }
+
+            for (int disease = 0; disease < spread.getDiseaseCount(); disease++) {
+                final String diseaseName = spread.getDiseaseName(disease);
+                interaction.setProgress(disease, spread.getDiseaseCount(), "Writing percentiles for " + diseaseName, true);
+                final int lowerAttributeId = addBandAttribute(writableGraph, diseaseName + " 5th Percentile by Day");
+                final int medianAttributeId = addBandAttribute(writableGraph, diseaseName + " Median by Day");
+                final int upperAttributeId = addBandAttribute(writableGraph, diseaseName + " 95th Percentile by Day");
+                final StringBuilder lower = new StringBuilder();
+                final StringBuilder median = new StringBuilder();
+                final StringBuilder upper = new StringBuilder();
+                for (int city = 0; city < network.getCityCount(); city++) {
+                    final int vertex = network.getCity(city);
+                    lower.setLength(0);
+                    median.setLength(0);
+                    upper.setLength(0);
+                    for (int day = 1; day <= numberOfDays; day++) {
+                        if (day > 1) {
+                            lower.append(',');
+                            median.append(',');
+                            upper.append(',');
+                        }
+                        lower.append(spread.getLower(day, vertex, disease));
+                        median.append(spread.getMedian(day, vertex, disease));
+                        upper.append(spread.getUpper(day, vertex, disease));
+                    }
+                    final int vertexId = network.getVertexId(vertex);
+                    writableGraph.setStringValue(lowerAttributeId, vertexId, lower.toString());
+                    writableGraph.setStringValue(medianAttributeId, vertexId, median.toString());
+                    writableGraph.setStringValue(upperAttributeId, vertexId, upper.toString());
+                }
+            }
+            interaction.setProgress(0, 0, "Finished", true);
+        }
+    }
+
+    private static int addBandAttribute(final GraphWriteMethods graph, final String attributeName) {
+        return graph.addAttribute(GraphElementType.VERTEX, StringAttributeDescription.ATTRIBUTE_NAME, attributeName, attributeName, null, null);
+    }
+}
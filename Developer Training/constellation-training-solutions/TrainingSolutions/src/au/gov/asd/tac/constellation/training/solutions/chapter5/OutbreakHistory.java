@@ -0,0 +1,282 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Outbreak History.
+ * <p>
+ * Checkpoints of the outbreak of every vertex in a simulation, one for each
+ * recorded day, that can be moved between in either direction. Only the first
+ * checkpoint is held in full. Each later checkpoint holds the vertices whose
+ * outbreak changed since the one before it, with their outbreak before and
+ * after the change, so the outbreaks of unchanged vertices are shared between
+ * days rather than copied. A change costs three array entries, and the
+ * outbreaks themselves are the interned instances the simulation produced, so
+ * a year of daily checkpoints for every city costs at most a few hundred
+ * megabytes even if every city changes every day, and far less while an
+ * outbreak is still spreading.
+ * <p>
+ * Moving to another day applies the changes between the two days, forwards
+ * or backwards, and reports only the vertices whose outbreak ends up
+ * different, so that a graph can be brought to that day by writing just
+ * those vertices.
+ */
+public final class OutbreakHistory {
+
+    private final Outbreak[] outbreaks;
+    private final int firstDay;
+    private final List<Delta> deltas = new ArrayList<>();
+    private int checkpoint = 0;
+    private long changeCount = 0;
+
+    /**
+     * The changes from one checkpoint to the next.
+     */
+    private static final class Delta {
+
+        private final int day;
+        private final int[] vertices;
+        private final Outbreak[] before;
+        private final Outbreak[] after;
+
+        private Delta(final int day, final int[] vertices, final Outbreak[] before, final Outbreak[] after) {
+            this.day = day;
+            this.vertices = vertices;
+            this.before = before;
+            this.after = after;
+        }
+    }
+
+    /**
+     * Creates a history whose first checkpoint holds the specified outbreaks.
+     *
+     * @param outbreaks the outbreak of every vertex, which may be null.
+     * @param firstDay the day of the first checkpoint.
+     */
+    public OutbreakHistory(final Outbreak[] outbreaks, final int firstDay) {
+        this.outbreaks = outbreaks.clone();
+        this.firstDay = firstDay;
+    }
+
+    /**
+     * Records the specified outbreaks as the checkpoint for a new day. If the
+     * history has been moved back to an earlier day, the checkpoints after
+     * that day are discarded first, as the new day follows on from the
+     * current one.
+     *
+     * @param day the day of the new checkpoint, which must be after the
+     * current day.
+     * @param newOutbreaks the outbreak of every vertex on the new day.
+     * @param vertices the vertices whose outbreak may have changed since the
+     * current day. Every other vertex is assumed to be unchanged.
+     */
+    public void record(final int day, final Outbreak[] newOutbreaks, final int[] vertices) {
+        if (newOutbreaks.length != outbreaks.length) {
+            throw new IllegalArgumentException("There must be one outbreak for each vertex");
+        }
+        if (day <= getDay()) {
+            throw new IllegalArgumentException("Checkpoints must be recorded in day order: day " + day + " is not after day " + getDay());
+        }
+        while (deltas.size() > checkpoint) {
+            changeCount -= deltas.remove(deltas.size() - 1).vertices.length;
+        }
+
+        int[] changedVertices = new int[Math.min(vertices.length, 16)];
+        Outbreak[] before = new Outbreak[changedVertices.length];
+        Outbreak[] after = new Outbreak[changedVertices.length];
+        int changed = 0;
+        for (final int vertex : vertices) {
+            if (!isSame(outbreaks[vertex], newOutbreaks[vertex])) {
+                if (changed == changedVertices.length) {
+                    changedVertices = Arrays.copyOf(changedVertices, Math.max(16, changed * 2));
+                    before = Arrays.copyOf(before, changedVertices.length);
+                    after = Arrays.copyOf(after, changedVertices.length);
+                }
+                changedVertices[changed] = vertex;
+                before[changed] = outbreaks[vertex];
+                after[changed++] = newOutbreaks[vertex];
+                outbreaks[vertex] = newOutbreaks[vertex];
+            }
+        }
+        deltas.add(new Delta(day, Arrays.copyOf(changedVertices, changed), Arrays.copyOf(before, changed), Arrays.copyOf(after, changed)));
+        checkpoint = deltas.size();
+        changeCount += changed;
+    }
+
+    /**
+     * Records the specified outbreaks as the checkpoint for a new day,
+     * comparing the outbreak of every vertex with the current day.
+     *
+     * @param day the day of the new checkpoint, which must be after the
+     * current day.
+     * @param newOutbreaks the outbreak of every vertex on the new day.
+     */
+    public void record(final int day, final Outbreak[] newOutbreaks) {
+        final int[] vertices = new int[outbreaks.length];
+        for (int vertex = 0; vertex < vertices.length; vertex++) {
+            vertices[vertex] = vertex;
+        }
+        record(day, newOutbreaks, vertices);
+    }
+
+    /**
+     * Moves to the checkpoint for the specified day.
+     *
+     * @param day the day to move to, which must have a checkpoint.
+     * @return the vertices whose outbreak on that day differs from their
+     * outbreak on the previous current day, in ascending order.
+     */
+    public int[] jumpTo(final int day) {
+        final int target = findCheckpoint(day);
+        if (target < 0) {
+            throw new IllegalArgumentException("There is no checkpoint for day " + day);
+        }
+
+        final BitSet touched = new BitSet(outbreaks.length);
+        int[] touchedVertices = new int[16];
+        Outbreak[] original = new Outbreak[16];
+        int touchedCount = 0;
+        while (checkpoint != target) {
+            final boolean forwards = checkpoint < target;
+            final Delta delta = deltas.get(forwards ? checkpoint : checkpoint - 1);
+            for (int i = 0; i < delta.vertices.length; i++) {
+                final int vertex = delta.vertices[i];
+                if (!touched.get(vertex)) {
+                    touched.set(vertex);
+                    if (touchedCount == touchedVertices.length) {
+                        touchedVertices = Arrays.copyOf(touchedVertices, touchedCount * 2);
+                        original = Arrays.copyOf(original, touchedCount * 2);
+                    }
+                    touchedVertices[touchedCount] = vertex;
+                    original[touchedCount++] = outbreaks[vertex];
+                }
+                outbreaks[vertex] = forwards ? delta.after[i] : delta.before[i];
+            }
+            checkpoint += forwards ? 1 : -1;
+        }
+
+        // A vertex may change and then change back, so only the vertices
+        // that differ from where they started are reported.
+        final BitSet differing = new BitSet(outbreaks.length);
+        for (int i = 0; i < touchedCount; i++) {
+            if (!isSame(original[i], outbreaks[touchedVertices[i]])) {
+                differing.set(touchedVertices[i]);
+            }
+        }
+        return differing.stream().toArray();
+    }
+
+    private int findCheckpoint(final int day) {
+        if (day == firstDay) {
+            return 0;
+        }
+        int low = 0;
+        int high = deltas.size() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midDay = deltas.get(mid).day;
+            if (midDay < day) {
+                low = mid + 1;
+            } else if (midDay > day) {
+                high = mid - 1;
+            } else {
+                return mid + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isSame(final Outbreak outbreak, final Outbreak other) {
+        return outbreak == other || (outbreak != null && outbreak.equals(other));
+    }
+
+    /**
+     * Returns whether there is a checkpoint for the specified day.
+     *
+     * @param day the day.
+     * @return true if the history has a checkpoint for the day.
+     */
+    public boolean hasCheckpoint(final int day) {
+        return findCheckpoint(day) >= 0;
+    }
+
+    /**
+     * Returns the days that have a checkpoint, in ascending order.
+     *
+     * @return the days that have a checkpoint.
+     */
+    public int[] getDays() {
+        final int[] days = new int[deltas.size() + 1];
+        days[0] = firstDay;
+        for (int i = 0; i < deltas.size(); i++) {
+            days[i + 1] = deltas.get(i).day;
+        }
+        return days;
+    }
+
+    /**
+     * Returns the day of the current checkpoint.
+     *
+     * @return the current day.
+     */
+    public int getDay() {
+        return checkpoint == 0 ? firstDay : deltas.get(checkpoint - 1).day;
+    }
+
+    /**
+     * Returns the day of the last checkpoint.
+     *
+     * @return the last day.
+     */
+    public int getLastDay() {
+        return deltas.isEmpty() ? firstDay : deltas.get(deltas.size() - 1).day;
+    }
+
+    /**
+     * Returns the number of vertex changes held across every checkpoint,
+     * which is what the memory used by the history grows with.
+     *
+     * @return the number of changes held.
+     */
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Returns the outbreak of the specified vertex on the current day.
+     *
+     * @param vertex the index of the vertex.
+     * @return the outbreak of the vertex, which may be null.
+     */
+    public Outbreak getOutbreak(final int vertex) {
+        return outbreaks[vertex];
+    }
+
+    /**
+     * Returns the number of vertices in each checkpoint.
+     *
+     * @return the number of vertices.
+     */
+    public int getVertexCount() {
+        return outbreaks.length;
+    }
+}
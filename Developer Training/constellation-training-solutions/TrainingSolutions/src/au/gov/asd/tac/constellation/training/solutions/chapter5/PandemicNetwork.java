@@ -0,0 +1,480 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.graph.schema.analytic.concept.AnalyticConcept;
+import au.gov.asd.tac.constellation.training.solutions.FlightTable;
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities;
+import au.gov.asd.tac.constellation.training.solutions.chapter3.PandemicConcept;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pandemic Network.
+ * <p>
+ * An immutable snapshot of the cities in a pandemic graph and the passengers
+ * flying between them, held in compressed sparse row form so that simulations
+ * can run on primitive arrays rather than through the graph API.
+ * <p>
+ * Every vertex is given an index equal to its position in the graph. The
+ * inbound edges of vertex v are held at indices
+ * {@code getInboundStart(v)} up to {@code getInboundEnd(v)} of the edge
+ * arrays, with each edge recording the neighbour the passengers fly in from
+ * and the total passengers of the FLIGHT transactions arriving at v from that
+ * neighbour. Neighbours with no arriving passengers have no edge. The same
+ * edges are also held by source vertex, as the outbound edges from
+ * {@code getOutboundStart(v)} up to {@code getOutboundEnd(v)}.
+ * <p>
+ * Networks are cached against the graph's structure modification counter and
+ * the value modification counters of the attributes they are built from, so
+ * repeated simulations on an unchanged graph reuse the same network.
+ * Outbreaks are not part of the network, as they change with every
+ * simulation; use {@link #readOutbreaks(GraphReadMethods, int)} instead.
+ * <p>
+ * A network can also be built straight from the cities and flights of
+ * {@link OutbreakUtilities} with {@link #forCities(long, long)}, without a
+ * graph. Every city is then a vertex whose index and id are its city id.
+ */
+public final class PandemicNetwork {
+
+    private static final int CACHE_SIZE = 8;
+    private static final String CITIES_CACHE_KEY = OutbreakUtilities.class.getName();
+
+    private static final Map<String, PandemicNetwork> CACHE = new LinkedHashMap<String, PandemicNetwork>(CACHE_SIZE, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, PandemicNetwork> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final long[] modificationCounters;
+    private final int[] vertexIds;
+    private final boolean[] cities;
+    private final int[] cityIndices;
+    private final int[] populations;
+    private final int[] inboundStarts;
+    private final int[] inboundSources;
+    private final int[] inboundPassengers;
+    private final int[] outboundStarts;
+    private final int[] outboundDestinations;
+
+    private PandemicNetwork(final long[] modificationCounters, final int[] vertexIds, final boolean[] cities, final int[] populations, final int[] inboundStarts, final int[] inboundSources, final int[] inboundPassengers) {
+        this.modificationCounters = modificationCounters;
+        this.vertexIds = vertexIds;
+        this.cities = cities;
+        this.populations = populations;
+        this.inboundStarts = inboundStarts;
+        this.inboundSources = inboundSources;
+        this.inboundPassengers = inboundPassengers;
+
+        final int vertexCount = vertexIds.length;
+        int cityCount = 0;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            if (cities[vertex]) {
+                cityCount++;
+            }
+        }
+        cityIndices = new int[cityCount];
+        cityCount = 0;
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            if (cities[vertex]) {
+                cityIndices[cityCount++] = vertex;
+            }
+        }
+
+        final int edgeCount = inboundSources.length;
+        outboundStarts = new int[vertexCount + 1];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            outboundStarts[inboundSources[edge] + 1]++;
+        }
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            outboundStarts[vertex + 1] += outboundStarts[vertex];
+        }
+        outboundDestinations = new int[edgeCount];
+        final int[] outboundCounts = Arrays.copyOf(outboundStarts, vertexCount);
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            for (int edge = inboundStarts[vertex]; edge < inboundStarts[vertex + 1]; edge++) {
+                outboundDestinations[outboundCounts[inboundSources[edge]]++] = vertex;
+            }
+        }
+    }
+
+    private static PandemicNetwork build(final GraphReadMethods graph, final long[] modificationCounters, final int vertexTypeAttributeId, final int transactionTypeAttributeId, final int populationAttributeId, final int passengersAttributeId) {
+        final int vertexCount = graph.getVertexCount();
+        final int[] vertexIds = new int[vertexCount];
+        final boolean[] cities = new boolean[vertexCount];
+        final int[] populations = new int[vertexCount];
+        final int[] inboundStarts = new int[vertexCount + 1];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            final int vertexId = graph.getVertex(vertex);
+            vertexIds[vertex] = vertexId;
+            populations[vertex] = graph.getIntValue(populationAttributeId, vertexId);
+            cities[vertex] = PandemicConcept.VertexType.CITY.equals(graph.getObjectValue(vertexTypeAttributeId, vertexId));
+        }
+
+        int edgeCount = 0;
+        int[] sources = new int[Math.max(16, vertexCount)];
+        int[] passengers = new int[sources.length];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            final int vertexId = vertexIds[vertex];
+            inboundStarts[vertex] = edgeCount;
+            for (int vertexNeighbourPosition = 0; vertexNeighbourPosition < graph.getVertexNeighbourCount(vertexId); vertexNeighbourPosition++) {
+                final int neighbourId = graph.getVertexNeighbour(vertexId, vertexNeighbourPosition);
+                final int neighbourLink = graph.getLink(vertexId, neighbourId);
+                int passengerTotal = 0;
+                for (int neighbourTransactionPosition = 0; neighbourTransactionPosition < graph.getLinkTransactionCount(neighbourLink); neighbourTransactionPosition++) {
+                    final int neighbourTransactionId = graph.getLinkTransaction(neighbourLink, neighbourTransactionPosition);
+                    if (passengersAttributeId != Graph.NOT_FOUND
+                            && graph.getTransactionDestinationVertex(neighbourTransactionId) == vertexId
+                            && PandemicConcept.TransactionType.FLIGHT.equals(graph.getObjectValue(transactionTypeAttributeId, neighbourTransactionId))) {
+                        passengerTotal += graph.getIntValue(passengersAttributeId, neighbourTransactionId);
+                    }
+                }
+                if (passengerTotal > 0) {
+                    if (edgeCount == sources.length) {
+                        sources = Arrays.copyOf(sources, edgeCount * 2);
+                        passengers = Arrays.copyOf(passengers, edgeCount * 2);
+                    }
+                    sources[edgeCount] = graph.getVertexPosition(neighbourId);
+                    passengers[edgeCount++] = passengerTotal;
+                }
+            }
+        }
+        inboundStarts[vertexCount] = edgeCount;
+        return new PandemicNetwork(modificationCounters, vertexIds, cities, populations, inboundStarts, Arrays.copyOf(sources, edgeCount), Arrays.copyOf(passengers, edgeCount));
+    }
+
+    /**
+     * Returns the network of the specified graph, building it only if the
+     * graph has changed since the network was last built.
+     *
+     * @param graph the graph.
+     * @return the network of the graph, or null if the graph does not have
+     * the attributes of a pandemic graph.
+     */
+    public static PandemicNetwork get(final GraphReadMethods graph) {
+        final int vertexTypeAttributeId = AnalyticConcept.VertexAttribute.TYPE.get(graph);
+        final int transactionTypeAttributeId = AnalyticConcept.TransactionAttribute.TYPE.get(graph);
+        final int populationAttributeId = PandemicConcept.VertexAttribute.POPULATION.get(graph);
+        final int passengersAttributeId = PandemicConcept.TransactionAttribute.NUMBER_OF_PASSENGERS.get(graph);
+        if (vertexTypeAttributeId == Graph.NOT_FOUND || transactionTypeAttributeId == Graph.NOT_FOUND || populationAttributeId == Graph.NOT_FOUND) {
+            return null;
+        }
+
+        final long[] modificationCounters = {
+            graph.getStructureModificationCounter(),
+            graph.getAttributeModificationCounter(),
+            graph.getValueModificationCounter(vertexTypeAttributeId),
+            graph.getValueModificationCounter(transactionTypeAttributeId),
+            graph.getValueModificationCounter(populationAttributeId),
+            passengersAttributeId == Graph.NOT_FOUND ? 0 : graph.getValueModificationCounter(passengersAttributeId)
+        };
+        synchronized (CACHE) {
+            final PandemicNetwork network = CACHE.get(graph.getId());
+            if (network != null && Arrays.equals(network.modificationCounters, modificationCounters)) {
+                return network;
+            }
+        }
+
+        final PandemicNetwork network = build(graph, modificationCounters, vertexTypeAttributeId, transactionTypeAttributeId, populationAttributeId, passengersAttributeId);
+        synchronized (CACHE) {
+            CACHE.put(graph.getId(), network);
+        }
+        return network;
+    }
+
+    /**
+     * Returns the network of every city known to {@link OutbreakUtilities},
+     * with the passengers of every flight departing within the specified
+     * range, building it only if the flights have changed since the network
+     * was last built. The vertex index and id of each city is its city id.
+     *
+     * @param startTime the start of the departure time range in milliseconds
+     * since the epoch.
+     * @param endTime the end of the departure time range in milliseconds since
+     * the epoch, inclusive.
+     * @return the network of every city.
+     */
+    public static PandemicNetwork forCities(final long startTime, final long endTime) {
+        final int cityCount = OutbreakUtilities.getCityCount();
+        final FlightTable flights = OutbreakUtilities.getFlightTable();
+        final int flightCount = flights.size();
+
+        final long[] modificationCounters = {cityCount, flightCount, startTime, endTime};
+        synchronized (CACHE) {
+            final PandemicNetwork network = CACHE.get(CITIES_CACHE_KEY);
+            if (network != null && Arrays.equals(network.modificationCounters, modificationCounters)) {
+                return network;
+            }
+        }
+
+        final int[] vertexIds = new int[cityCount];
+        final boolean[] cities = new boolean[cityCount];
+        final int[] populations = new int[cityCount];
+        for (int cityId = 0; cityId < cityCount; cityId++) {
+            vertexIds[cityId] = cityId;
+            cities[cityId] = true;
+            populations[cityId] = OutbreakUtilities.getCity(cityId).getPopulation();
+        }
+
+        // Bucket the flights by destination, then merge the flights on each
+        // route into a single edge, in the order the routes are first seen.
+        final int[] inboundStarts = new int[cityCount + 1];
+        int flightsInRange = 0;
+        for (int row = 0; row < flightCount; row++) {
+            if (isInRange(flights, row, cityCount, startTime, endTime)) {
+                inboundStarts[flights.getDestinationId(row) + 1]++;
+                flightsInRange++;
+            }
+        }
+        for (int cityId = 0; cityId < cityCount; cityId++) {
+            inboundStarts[cityId + 1] += inboundStarts[cityId];
+        }
+        final int[] sources = new int[flightsInRange];
+        final int[] passengers = new int[flightsInRange];
+        final int[] bucketEnds = Arrays.copyOf(inboundStarts, cityCount);
+        for (int row = 0; row < flightCount; row++) {
+            if (isInRange(flights, row, cityCount, startTime, endTime)) {
+                final int flight = bucketEnds[flights.getDestinationId(row)]++;
+                sources[flight] = flights.getSourceId(row);
+                passengers[flight] = flights.getPassengers(row);
+            }
+        }
+
+        final int[] routeDestinations = new int[cityCount];
+        final int[] routeEdges = new int[cityCount];
+        Arrays.fill(routeDestinations, -1);
+        int edgeCount = 0;
+        for (int cityId = 0; cityId < cityCount; cityId++) {
+            final int flightsEnd = inboundStarts[cityId + 1];
+            final int flightsStart = inboundStarts[cityId];
+            inboundStarts[cityId] = edgeCount;
+            for (int flight = flightsStart; flight < flightsEnd; flight++) {
+                final int source = sources[flight];
+                if (routeDestinations[source] == cityId) {
+                    passengers[routeEdges[source]] += passengers[flight];
+                } else {
+                    routeDestinations[source] = cityId;
+                    routeEdges[source] = edgeCount;
+                    sources[edgeCount] = source;
+                    passengers[edgeCount++] = passengers[flight];
+                }
+            }
+        }
+        inboundStarts[cityCount] = edgeCount;
+
+        final PandemicNetwork network = new PandemicNetwork(modificationCounters, vertexIds, cities, populations, inboundStarts, Arrays.copyOf(sources, edgeCount), Arrays.copyOf(passengers, edgeCount));
+        synchronized (CACHE) {
+            CACHE.put(CITIES_CACHE_KEY, network);
+        }
+        return network;
+    }
+
+    private static boolean isInRange(final FlightTable flights, final int row, final int cityCount, final long startTime, final long endTime) {
+        final long departureTime = flights.getDepartureTime(row);
+        final int sourceId = flights.getSourceId(row);
+        final int destinationId = flights.getDestinationId(row);
+        return departureTime >= startTime && departureTime <= endTime && flights.getPassengers(row) > 0
+                && sourceId >= 0 && sourceId < cityCount && destinationId >= 0 && destinationId < cityCount;
+    }
+
+    /**
+     * Reads the current outbreak of every vertex in the network.
+     *
+     * @param graph the graph the network was built from.
+     * @param outbreakAttributeId the id of the outbreak attribute.
+     * @return the outbreak of every vertex, indexed by vertex, where vertices
+     * without an outbreak are null.
+     */
+    public Outbreak[] readOutbreaks(final GraphReadMethods graph, final int outbreakAttributeId) {
+        final Outbreak[] outbreaks = new Outbreak[vertexIds.length];
+        for (int vertex = 0; vertex < vertexIds.length; vertex++) {
+            outbreaks[vertex] = graph.getObjectValue(outbreakAttributeId, vertexIds[vertex]);
+        }
+        return outbreaks;
+    }
+
+    /**
+     * Returns the number of vertices in the network.
+     *
+     * @return the number of vertices in the network.
+     */
+    public int getVertexCount() {
+        return vertexIds.length;
+    }
+
+    /**
+     * Returns the graph id of the specified vertex, or its city id if the
+     * network was built from the cities rather than a graph.
+     *
+     * @param vertex the index of the vertex.
+     * @return the graph id of the vertex.
+     */
+    public int getVertexId(final int vertex) {
+        return vertexIds[vertex];
+    }
+
+    /**
+     * Returns whether the specified vertex is a city.
+     *
+     * @param vertex the index of the vertex.
+     * @return true if the vertex is a city.
+     */
+    public boolean isCity(final int vertex) {
+        return cities[vertex];
+    }
+
+    /**
+     * Returns the number of cities in the network.
+     *
+     * @return the number of cities in the network.
+     */
+    public int getCityCount() {
+        return cityIndices.length;
+    }
+
+    /**
+     * Returns the vertex index of the specified city, where cities are
+     * numbered in vertex order.
+     *
+     * @param city the number of the city, from 0 to
+     * {@link #getCityCount()} - 1.
+     * @return the vertex index of the city.
+     */
+    public int getCity(final int city) {
+        return cityIndices[city];
+    }
+
+    /**
+     * Returns the population of the specified vertex.
+     *
+     * @param vertex the index of the vertex.
+     * @return the population of the vertex.
+     */
+    public int getPopulation(final int vertex) {
+        return populations[vertex];
+    }
+
+    /**
+     * Returns the number of inbound edges in the network.
+     *
+     * @return the number of inbound edges in the network.
+     */
+    public int getEdgeCount() {
+        return inboundSources.length;
+    }
+
+    /**
+     * Returns the index of the first inbound edge of the specified vertex.
+     *
+     * @param vertex the index of the vertex.
+     * @return the index of the first inbound edge of the vertex.
+     */
+    public int getInboundStart(final int vertex) {
+        return inboundStarts[vertex];
+    }
+
+    /**
+     * Returns the index after the last inbound edge of the specified vertex.
+     *
+     * @param vertex the index of the vertex.
+     * @return the index after the last inbound edge of the vertex.
+     */
+    public int getInboundEnd(final int vertex) {
+        return inboundStarts[vertex + 1];
+    }
+
+    /**
+     * Returns the vertex that passengers on the specified edge fly in from.
+     *
+     * @param edge the index of the edge.
+     * @return the index of the source vertex of the edge.
+     */
+    public int getInboundSource(final int edge) {
+        return inboundSources[edge];
+    }
+
+    /**
+     * Returns the total passengers on the specified edge.
+     *
+     * @param edge the index of the edge.
+     * @return the total passengers on the edge.
+     */
+    public int getInboundPassengers(final int edge) {
+        return inboundPassengers[edge];
+    }
+
+    /**
+     * Returns the index of the first outbound edge of the specified vertex.
+     * Outbound edges are the inbound edges of the network seen from their
+     * source, and are numbered separately from them.
+     *
+     * @param vertex the index of the vertex.
+     * @return the index of the first outbound edge of the vertex.
+     */
+    public int getOutboundStart(final int vertex) {
+        return outboundStarts[vertex];
+    }
+
+    /**
+     * Returns the index after the last outbound edge of the specified vertex.
+     *
+     * @param vertex the index of the vertex.
+     * @return the index after the last outbound edge of the vertex.
+     */
+    public int getOutboundEnd(final int vertex) {
+        return outboundStarts[vertex + 1];
+    }
+
+    /**
+     * Returns the vertex that passengers on the specified outbound edge fly
+     * to.
+     *
+     * @param edge the index of the outbound edge.
+     * @return the index of the destination vertex of the edge.
+     */
+    public int getOutboundDestination(final int edge) {
+        return outboundDestinations[edge];
+    }
+
+    /**
+     * The populations of every vertex, indexed by vertex. The array is shared
+     * and must not be modified.
+     */
+    int[] getPopulations() {
+        return populations;
+    }
+
+    /**
+     * The source vertex of every inbound edge, indexed by edge. The array is
+     * shared and must not be modified.
+     */
+    int[] getInboundSources() {
+        return inboundSources;
+    }
+
+    /**
+     * The passengers on every inbound edge, indexed by edge. The array is
+     * shared and must not be modified.
+     */
+    int[] getInboundPassengers() {
+        return inboundPassengers;
+    }
+}
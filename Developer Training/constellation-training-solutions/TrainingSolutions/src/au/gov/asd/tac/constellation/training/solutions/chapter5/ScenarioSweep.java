@@ -0,0 +1,247 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Scenario Sweep.
+ * <p>
+ * Runs the daily spread model of
+ * {@link OutbreakUtilities#spreadDisease(Outbreak, int, Outbreak[], int[], int[], int[], int, int, int)}
+ * over a {@link PandemicNetwork} for every combination of a set of local
+ * spread factors, travel scales and horizons, and summarises the outcome of
+ * each. Every city is spread synchronously one day at a time, with the local
+ * spread factor in place of {@link OutbreakUtilities#DAILY_LOCAL_SPREAD_FACTOR}
+ * and the passengers on every inbound edge multiplied by the travel scale.
+ * The counts are kept in arrays and spread with
+ * {@link OutbreakUtilities#spreadLocally(int, int, double)} and
+ * {@link OutbreakUtilities#spreadFromNeighbour(int, int, int, double, double, int)},
+ * the steps spreadDisease itself is made of.
+ * <p>
+ * The scenarios sharing a local spread factor and travel scale differ only in
+ * how long they run, so each such pair is simulated once, up to the longest
+ * horizon, and summarised as it passes each horizon. The pairs are simulated
+ * in parallel, each on its own arrays; the network and the initial outbreaks
+ * are only read, so the graph they came from is never touched.
+ */
+public final class ScenarioSweep {
+
+    private ScenarioSweep() {
+    }
+
+    /**
+     * The outcome of one scenario.
+     */
+    public static final class Result {
+
+        private final double localSpreadFactor;
+        private final double travelScale;
+        private final int horizon;
+        private final long totalAfflicted;
+        private final int citiesAfflicted;
+        private final int peakDay;
+
+        private Result(final double localSpreadFactor, final double travelScale, final int horizon, final long totalAfflicted, final int citiesAfflicted, final int peakDay) {
+            this.localSpreadFactor = localSpreadFactor;
+            this.travelScale = travelScale;
+            this.horizon = horizon;
+            this.totalAfflicted = totalAfflicted;
+            this.citiesAfflicted = citiesAfflicted;
+            this.peakDay = peakDay;
+        }
+
+        public double getLocalSpreadFactor() {
+            return localSpreadFactor;
+        }
+
+        public double getTravelScale() {
+            return travelScale;
+        }
+
+        public int getHorizon() {
+            return horizon;
+        }
+
+        /**
+         * Returns the number of people afflicted with any disease across every
+         * city at the horizon, counting a person once for each disease.
+         *
+         * @return the total afflicted population.
+         */
+        public long getTotalAfflicted() {
+            return totalAfflicted;
+        }
+
+        /**
+         * Returns the number of cities with at least one afflicted person at
+         * the horizon.
+         *
+         * @return the number of afflicted cities.
+         */
+        public int getCitiesAfflicted() {
+            return citiesAfflicted;
+        }
+
+        /**
+         * Returns the day up to the horizon on which the most people were
+         * newly afflicted, or 0 if the outbreaks did not grow.
+         *
+         * @return the peak day.
+         */
+        public int getPeakDay() {
+            return peakDay;
+        }
+    }
+
+    /**
+     * Runs every combination of the specified local spread factors, travel
+     * scales and horizons.
+     *
+     * @param network the network to simulate.
+     * @param outbreaks the initial outbreak of every vertex in the network,
+     * which may be null.
+     * @param localSpreadFactors the local spread factors.
+     * @param travelScales the factors applied to the passengers on every
+     * inbound edge.
+     * @param horizons the numbers of days to run for.
+     * @return the result of every scenario, ordered by local spread factor,
+     * then travel scale, then horizon, in the order given.
+     */
+    public static List<Result> run(final PandemicNetwork network, final Outbreak[] outbreaks, final double[] localSpreadFactors, final double[] travelScales, final int[] horizons) {
+        for (final double localSpreadFactor : localSpreadFactors) {
+            if (localSpreadFactor < 0) {
+                throw new IllegalArgumentException("Local spread factors must not be negative");
+            }
+        }
+        for (final double travelScale : travelScales) {
+            if (travelScale < 0) {
+                throw new IllegalArgumentException("Travel scales must not be negative");
+            }
+        }
+        int longestHorizon = 0;
+        for (final int horizon : horizons) {
+            if (horizon < 0) {
+                throw new IllegalArgumentException("Horizons must not be negative");
+            }
+            longestHorizon = Math.max(longestHorizon, horizon);
+        }
+        final int days = longestHorizon;
+
+        final DiseaseIndex diseases = new DiseaseIndex(outbreaks);
+        final int[] initialAfflicted = diseases.getCounts(outbreaks, network.getPopulations());
+
+        final Result[][] results = new Result[localSpreadFactors.length * travelScales.length][];
+        IntStream.range(0, results.length).parallel().forEach(pair -> {
+            final double localSpreadFactor = localSpreadFactors[pair / travelScales.length];
+            final double travelScale = travelScales[pair % travelScales.length];
+            results[pair] = runPair(network, diseases.size(), initialAfflicted, localSpreadFactor, travelScale, horizons, days);
+        });
+
+        final List<Result> sweep = new ArrayList<>(results.length * horizons.length);
+        for (final Result[] pairResults : results) {
+            sweep.addAll(Arrays.asList(pairResults));
+        }
+        return sweep;
+    }
+
+    private static Result[] runPair(final PandemicNetwork network, final int diseaseCount, final int[] initialAfflicted, final double localSpreadFactor, final double travelScale, final int[] horizons, final int days) {
+        int[] afflicted = initialAfflicted.clone();
+        int[] next = new int[afflicted.length];
+
+        final Result[] results = new Result[horizons.length];
+        long total = getTotalAfflicted(network, diseaseCount, afflicted);
+        long peakGrowth = 0;
+        int peakDay = 0;
+        for (int day = 0; day <= days; day++) {
+            if (day > 0) {
+                final long previousTotal = total;
+                step(network, diseaseCount, afflicted, next, localSpreadFactor, travelScale);
+                final int[] swap = afflicted;
+                afflicted = next;
+                next = swap;
+                total = getTotalAfflicted(network, diseaseCount, afflicted);
+                if (total - previousTotal > peakGrowth) {
+                    peakGrowth = total - previousTotal;
+                    peakDay = day;
+                }
+            }
+            for (int i = 0; i < horizons.length; i++) {
+                if (horizons[i] == day) {
+                    results[i] = new Result(localSpreadFactor, travelScale, day, total, getCitiesAfflicted(network, diseaseCount, afflicted), peakDay);
+                }
+            }
+        }
+        return results;
+    }
+
+    private static void step(final PandemicNetwork network, final int diseaseCount, final int[] afflicted, final int[] next, final double localSpreadFactor, final double travelScale) {
+        final int[] populations = network.getPopulations();
+        final int[] inboundSources = network.getInboundSources();
+        final int[] inboundPassengers = network.getInboundPassengers();
+        final double localGrowth = OutbreakUtilities.getLocalGrowth(localSpreadFactor, 1);
+        for (int vertex = 0; vertex < populations.length; vertex++) {
+            final int base = vertex * diseaseCount;
+            final int population = populations[vertex];
+            if (!network.isCity(vertex)) {
+                System.arraycopy(afflicted, base, next, base, diseaseCount);
+                continue;
+            }
+            for (int disease = 0; disease < diseaseCount; disease++) {
+                next[base + disease] = OutbreakUtilities.spreadLocally(afflicted[base + disease], population, localGrowth);
+            }
+            final int inboundEnd = network.getInboundEnd(vertex);
+            for (int edge = network.getInboundStart(vertex); edge < inboundEnd; edge++) {
+                final int source = inboundSources[edge];
+                final double volume = inboundPassengers[edge] * travelScale;
+                final int sourceBase = source * diseaseCount;
+                for (int disease = 0; disease < diseaseCount; disease++) {
+                    next[base + disease] = OutbreakUtilities.spreadFromNeighbour(next[base + disease], population, afflicted[sourceBase + disease], populations[source], volume, 1);
+                }
+            }
+        }
+    }
+
+    private static long getTotalAfflicted(final PandemicNetwork network, final int diseaseCount, final int[] afflicted) {
+        long total = 0;
+        for (int city = 0; city < network.getCityCount(); city++) {
+            final int base = network.getCity(city) * diseaseCount;
+            for (int disease = 0; disease < diseaseCount; disease++) {
+                total += afflicted[base + disease];
+            }
+        }
+        return total;
+    }
+
+    private static int getCitiesAfflicted(final PandemicNetwork network, final int diseaseCount, final int[] afflicted) {
+        int cities = 0;
+        for (int city = 0; city < network.getCityCount(); city++) {
+            final int base = network.getCity(city) * diseaseCount;
+            for (int disease = 0; disease < diseaseCount; disease++) {
+                if (afflicted[base + disease] > 0) {
+                    cities++;
+                    break;
+                }
+            }
+        }
+        return cities;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.graph.node.GraphNode;
+import au.gov.asd.tac.constellation.graph.node.plugins.SimplePluginAction;
+import au.gov.asd.tac.constellation.training.solutions.PandemicPluginRegistry;
+import org.openide.awt.ActionID;
+import org.openide.awt.ActionReference;
+import org.openide.awt.ActionRegistration;
+import org.openide.util.NbBundle;
+
+/**
+ * Scenario Sweep Action.
+ */
+@ActionID(category = "Tools", id = "au.gov.asd.tac.constellation.training.solutions.chapter5.ScenarioSweepAction")
+@ActionRegistration(displayName = "#CTL_ScenarioSweepAction", iconBase = "", surviveFocusChange = true)
+@ActionReference(path = "Menu/Tools", position = 22)
+@NbBundle.Messages("CTL_ScenarioSweepAction=Sweep Spread Scenarios")
+public class ScenarioSweepAction extends SimplePluginAction {
+
+    public ScenarioSweepAction(final GraphNode context) {
+        super(context, PandemicPluginRegistry.SCENARIO_SWEEP, true);
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.plugins.Plugin;
+import au.gov.asd.tac.constellation.plugins.PluginException;
+import au.gov.asd.tac.constellation.plugins.PluginInfo;
+import au.gov.asd.tac.constellation.plugins.PluginInteraction;
+import au.gov.asd.tac.constellation.plugins.PluginNotificationLevel;
+import au.gov.asd.tac.constellation.plugins.PluginType;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameter;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
+import au.gov.asd.tac.constellation.plugins.parameters.types.StringParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.StringParameterValue;
+import au.gov.asd.tac.constellation.plugins.templates.SimpleReadPlugin;
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities;
+import au.gov.asd.tac.constellation.training.solutions.chapter3.PandemicConcept;
+import java.util.List;
+import org.openide.util.NbBundle;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Scenario Sweep Plugin.
+ * <p>
+ * Runs a {@link ScenarioSweep} over every combination of the listed local
+ * spread factors, travel scales and horizons, starting from the outbreaks in
+ * the graph, and reports a table of the results. The graph is only read, so
+ * there is nothing to undo between scenarios.
+ */
+@ServiceProvider(service = Plugin.class)
+@NbBundle.Messages("ScenarioSweepPlugin=Sweep Spread Scenarios")
+@PluginInfo(pluginType = PluginType.NONE, tags = {"OUTBREAK"})
+public class ScenarioSweepPlugin extends SimpleReadPlugin {
+
+    public static final String LOCAL_SPREAD_FACTORS_PARAMETER_ID = PluginParameter.buildId(ScenarioSweepPlugin.class, "local_spread_factors");
+    private static final String LOCAL_SPREAD_FACTORS_PARAMETER_LABEL = "Local Spread Factors";
+    public static final String TRAVEL_SCALES_PARAMETER_ID = PluginParameter.buildId(ScenarioSweepPlugin.class, "travel_scales");
+    private static final String TRAVEL_SCALES_PARAMETER_LABEL = "Travel Scales";
+    public static final String HORIZONS_PARAMETER_ID = PluginParameter.buildId(ScenarioSweepPlugin.class, "horizons");
+    private static final String HORIZONS_PARAMETER_LABEL = "Horizons (Days)";
+
+    @Override
+    public PluginParameters createParameters() {
+        final PluginParameters parameters = new PluginParameters();
+
+        final PluginParameter<StringParameterValue> localSpreadFactorsParameter = StringParameterType.build(LOCAL_SPREAD_FACTORS_PARAMETER_ID);
+        localSpreadFactorsParameter.setName(LOCAL_SPREAD_FACTORS_PARAMETER_LABEL);
+        localSpreadFactorsParameter.setDescription("A comma separated list of the daily fractions by which each outbreak grows within its city");
+        localSpreadFactorsParameter.setStringValue("0.005, " + OutbreakUtilities.DAILY_LOCAL_SPREAD_FACTOR + ", 0.02");
+        parameters.addParameter(localSpreadFactorsParameter);
+
+        final PluginParameter<StringParameterValue> travelScalesParameter = StringParameterType.build(TRAVEL_SCALES_PARAMETER_ID);
+        travelScalesParameter.setName(TRAVEL_SCALES_PARAMETER_LABEL);
+        travelScalesParameter.setDescription("A comma separated list of factors to apply to the passengers on every flight");
+        travelScalesParameter.setStringValue("0.5, 1, 2");
+        parameters.addParameter(travelScalesParameter);
+
+        final PluginParameter<StringParameterValue> horizonsParameter = StringParameterType.build(HORIZONS_PARAMETER_ID);
+        horizonsParameter.setName(HORIZONS_PARAMETER_LABEL);
+        horizonsParameter.setDescription("A comma separated list of the numbers of days to simulate");
+        horizonsParameter.setStringValue("7, 30, 90");
+        parameters.addParameter(horizonsParameter);
+
+        return parameters;
+    }
+
+    @Override
+    protected void read(final GraphReadMethods graph, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException, PluginException {
+        final double[] localSpreadFactors = parseDoubles(parameters.getStringValue(LOCAL_SPREAD_FACTORS_PARAMETER_ID), LOCAL_SPREAD_FACTORS_PARAMETER_LABEL);
+        final double[] travelScales = parseDoubles(parameters.getStringValue(TRAVEL_SCALES_PARAMETER_ID), TRAVEL_SCALES_PARAMETER_LABEL);
+        final double[] horizonValues = parseDoubles(parameters.getStringValue(HORIZONS_PARAMETER_ID), HORIZONS_PARAMETER_LABEL);
+        final int[] horizons = new int[horizonValues.length];
+        for (int i = 0; i < horizons.length; i++) {
+            horizons[i] = (int) horizonValues[i];
+            if (horizons[i] != horizonValues[i]) {
+                throw new PluginException(PluginNotificationLevel.ERROR, HORIZONS_PARAMETER_LABEL + " must be whole numbers of days");
+            }
+        }
+
+        final int outbreakAttributeId = PandemicConcept.VertexAttribute.OUTBREAK.get(graph);
+        final PandemicNetwork network = PandemicNetwork.get(graph);
+        if (outbreakAttributeId != Graph.NOT_FOUND && network != null) {
+            final Outbreak[] outbreaks = network.readOutbreaks(graph, outbreakAttributeId);
+            interaction.setProgress(0, 0, "Running " + localSpreadFactors.length * travelScales.length * horizons.length + " scenarios", true);
+            final List<ScenarioSweep.Result> results;
+            try {
+                results = ScenarioSweep.run(network, outbreaks, localSpreadFactors, travelScales, horizons);
+            } catch (final IllegalArgumentException ex) {
+                throw new PluginException(PluginNotificationLevel.ERROR, ex.getMessage());
+            }
+
+            final StringBuilder table = new StringBuilder("Local Spread Factor\tTravel Scale\tHorizon\tTotal Afflicted\tCities Afflicted\tPeak Day\n");
+            for (final ScenarioSweep.Result result : results) {
+                table.append(result.getLocalSpreadFactor()).append('\t')
+                        .append(result.getTravelScale()).append('\t')
+                        .append(result.getHorizon()).append('\t')
+                        .append(result.getTotalAfflicted()).append('\t')
+                        .append(result.getCitiesAfflicted()).append('\t')
+                        .append(result.getPeakDay()).append('\n');
+            }
+            interaction.setProgress(0, 0, "Finished", true);
+            interaction.notify(PluginNotificationLevel.INFO, table.toString());
+        }
+    }
+
+    private static double[] parseDoubles(final String text, final String label) throws PluginException {
+        if (text == null || text.isBlank()) {
+            throw new PluginException(PluginNotificationLevel.ERROR, label + " must list at least one value");
+        }
+        final String[] values = text.split(",");
+        final double[] parsed = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            try {
+                parsed[i] = Double.parseDouble(values[i].trim());
+            } catch (final NumberFormatException ex) {
+                throw new PluginException(PluginNotificationLevel.ERROR, label + " contains an invalid value: " + values[i].trim());
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
+import au.gov.asd.tac.constellation.graph.schema.visual.concept.VisualConcept;
+import au.gov.asd.tac.constellation.plugins.Plugin;
+import au.gov.asd.tac.constellation.plugins.PluginException;
+import au.gov.asd.tac.constellation.plugins.PluginInfo;
+import au.gov.asd.tac.constellation.plugins.PluginInteraction;
+import au.gov.asd.tac.constellation.plugins.PluginNotificationLevel;
+import au.gov.asd.tac.constellation.plugins.PluginType;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameter;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
+import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType.BooleanParameterValue;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType.IntegerParameterValue;
+import au.gov.asd.tac.constellation.plugins.parameters.types.StringParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.StringParameterValue;
+import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities;
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+import au.gov.asd.tac.constellation.training.solutions.chapter3.PandemicConcept;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import org.openide.util.NbBundle;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Simulate Interventions Plugin.
+ * <p>
+ * Spreads the outbreaks of the graph one day at a time while applying a
+ * schedule of treatments, cures and travel bans, with days counted from the
+ * start of the run. The simulation runs in memory on the
+ * {@link PandemicNetwork} of the graph, so each day's interventions are
+ * applied in a single pass by an {@link InterventionSchedule} rather than as
+ * graph edits, and the cities that changed are written to the graph once at
+ * the end. Cities are matched to interventions by their identifier, and to
+ * countries through the cities known to {@link OutbreakUtilities}.
+ * <p>
+ * Every day is recorded as a checkpoint, as {@link SpreadInfectionPlugin}
+ * does, so {@link JumpToDayPlugin} can return to any day of the run.
+ */
+@ServiceProvider(service = Plugin.class)
+@NbBundle.Messages("SimulateInterventionsPlugin=Simulate Interventions")
+@PluginInfo(pluginType = PluginType.NONE, tags = {"OUTBREAK"})
+public class SimulateInterventionsPlugin extends SimpleEditPlugin {
+
+    public static final String NUMBER_OF_DAYS_PARAMETER_ID = PluginParameter.buildId(SimulateInterventionsPlugin.class, "num_days");
+    private static final String NUMBER_OF_DAYS_PARAMETER_LABEL = "Number of Days";
+    public static final String SYNCHRONOUS_PARAMETER_ID = PluginParameter.buildId(SimulateInterventionsPlugin.class, "synchronous");
+    private static final String SYNCHRONOUS_PARAMETER_LABEL = "Synchronous";
+    public static final String SCHEDULE_PARAMETER_ID = PluginParameter.buildId(SimulateInterventionsPlugin.class, "schedule");
+    private static final String SCHEDULE_PARAMETER_LABEL = "Schedule";
+
+    @Override
+    public PluginParameters createParameters() {
+        final PluginParameters parameters = new PluginParameters();
+
+        final PluginParameter<IntegerParameterValue> daysParameter = IntegerParameterType.build(NUMBER_OF_DAYS_PARAMETER_ID, new IntegerParameterValue(30));
+        daysParameter.setName(NUMBER_OF_DAYS_PARAMETER_LABEL);
+        IntegerParameterType.setMinimum(daysParameter, 1);
+        parameters.addParameter(daysParameter);
+
+        final PluginParameter<BooleanParameterValue> synchronousParameter = BooleanParameterType.build(SYNCHRONOUS_PARAMETER_ID);
+        synchronousParameter.setName(SYNCHRONOUS_PARAMETER_LABEL);
+        synchronousParameter.setDescription("Spread every city from the outbreaks at the start of each day, in parallel, so that the result does not depend on the order of the cities");
+        synchronousParameter.setBooleanValue(false);
+        parameters.addParameter(synchronousParameter);
+
+        final PluginParameter<StringParameterValue> scheduleParameter = StringParameterType.build(SCHEDULE_PARAMETER_ID);
+        scheduleParameter.setName(SCHEDULE_PARAMETER_LABEL);
+        scheduleParameter.setDescription("One intervention per line: <day>, treat, <cities>, <disease>, <count> or <day>, cure, <cities>, <disease> or <day>, ban, <cities>[, <destination cities>], "
+                + "where cities are city:<name>, country:<country> or all");
+        StringParameterType.setLines(scheduleParameter, 10);
+        parameters.addParameter(scheduleParameter);
+
+        return parameters;
+    }
+
+    @Override
+    protected void edit(final GraphWriteMethods writableGraph, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException, PluginException {
+        final int numberOfDays = parameters.getIntegerValue(NUMBER_OF_DAYS_PARAMETER_ID);
+        final boolean synchronous = parameters.getBooleanValue(SYNCHRONOUS_PARAMETER_ID);
+        final List<Intervention> interventions = parseSchedule(parameters.getStringValue(SCHEDULE_PARAMETER_ID));
+
+        final int outbreakAttributeId = PandemicConcept.VertexAttribute.OUTBREAK.get(writableGraph);
+        final int identifierAttributeId = VisualConcept.VertexAttribute.IDENTIFIER.get(writableGraph);
+        final PandemicNetwork network = PandemicNetwork.get(writableGraph);
+        if (outbreakAttributeId != Graph.NOT_FOUND && identifierAttributeId != Graph.NOT_FOUND && network != null) {
+            OutbreakUtilities.awaitData(interaction);
+            final City[] cities = new City[network.getVertexCount()];
+            for (int city = 0; city < network.getCityCount(); city++) {
+                final int vertex = network.getCity(city);
+                final String cityName = writableGraph.getStringValue(identifierAttributeId, network.getVertexId(vertex));
+                cities[vertex] = cityName == null ? null : OutbreakUtilities.getCity(cityName);
+            }
+            final InterventionSchedule schedule = new InterventionSchedule(network, interventions, vertex -> cities[vertex]);
+
+            final Outbreak[] outbreaks = network.readOutbreaks(writableGraph, outbreakAttributeId);
+            GraphOutbreakHistory graphHistory = GraphOutbreakHistory.get(writableGraph);
+            if (graphHistory == null || !graphHistory.isCurrent(writableGraph, outbreakAttributeId)) {
+                graphHistory = GraphOutbreakHistory.start(writableGraph, outbreaks, outbreakAttributeId);
+            }
+            final OutbreakHistory history = graphHistory.getHistory();
+
+            // The days are recorded in the history of the graph, so the
+            // simulation keeps none of its own.
+            final WorldSimulation simulation = new WorldSimulation(network, outbreaks, false);
+            simulation.setSchedule(schedule);
+            final BitSet changed = new BitSet(outbreaks.length);
+            for (int day = 0; day < numberOfDays; day++) {
+                interaction.setProgress(day, numberOfDays, "Simulating day " + (day + 1) + " of " + numberOfDays, true);
+                final int[] dayChanged = simulation.spread(1, synchronous);
+                for (final int vertex : dayChanged) {
+                    outbreaks[vertex] = simulation.getOutbreak(vertex);
+                    changed.set(vertex);
+                }
+                history.record(history.getDay() + 1, outbreaks, dayChanged);
+            }
+
+            for (int vertex = changed.nextSetBit(0); vertex >= 0; vertex = changed.nextSetBit(vertex + 1)) {
+                writableGraph.setObjectValue(outbreakAttributeId, network.getVertexId(vertex), outbreaks[vertex]);
+            }
+            graphHistory.setCurrent(writableGraph, outbreakAttributeId);
+            interaction.setProgress(0, 0, "Finished", true);
+        }
+    }
+
+    private static List<Intervention> parseSchedule(final String schedule) throws PluginException {
+        final List<Intervention> interventions = new ArrayList<>();
+        if (schedule != null) {
+            final String[] lines = schedule.split("\n", -1);
+            for (int i = 0; i < lines.length; i++) {
+                if (!lines[i].isBlank()) {
+                    try {
+                        interventions.add(Intervention.valueOf(lines[i]));
+                    } catch (final IllegalArgumentException ex) {
+                        throw new PluginException(PluginNotificationLevel.ERROR, SCHEDULE_PARAMETER_LABEL + " line " + (i + 1) + ": " + ex.getMessage());
+                    }
+                }
+            }
+        }
+        return interventions;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.graph.processing.GraphRecordStore;
+import au.gov.asd.tac.constellation.graph.processing.GraphRecordStoreUtilities;
+import au.gov.asd.tac.constellation.graph.processing.RecordStore;
+import au.gov.asd.tac.constellation.plugins.Plugin;
+import au.gov.asd.tac.constellation.plugins.PluginException;
+import au.gov.asd.tac.constellation.plugins.PluginInteraction;
+import au.gov.asd.tac.constellation.plugins.PluginNotificationLevel;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameter;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
+import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType.BooleanParameterValue;
+import au.gov.asd.tac.constellation.plugins.parameters.types.DateTimeRange;
+import au.gov.asd.tac.constellation.plugins.parameters.types.DateTimeRangeParameterType.DateTimeRangeParameterValue;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType.IntegerParameterValue;
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities;
+import au.gov.asd.tac.constellation.views.dataaccess.CoreGlobalParameters;
+import au.gov.asd.tac.constellation.views.dataaccess.plugins.DataAccessPlugin;
+import au.gov.asd.tac.constellation.views.dataaccess.plugins.DataAccessPluginCoreType;
+import au.gov.asd.tac.constellation.views.dataaccess.templates.RecordStoreQueryPlugin;
+import java.util.BitSet;
+import org.openide.util.NbBundle;
+import org.openide.util.lookup.ServiceProvider;
+import org.openide.util.lookup.ServiceProviders;
+
+/**
+ * Simulate World Plugin.
+ * <p>
+ * Spreads the outbreaks of every city over the flights in the selected date
+ * range with a {@link WorldSimulation}, one day at a time, without importing
+ * anything into the graph first. Only the most afflicted cities at the end of
+ * the simulation are then added to the graph, with their simulated outbreaks,
+ * along with the flights between them if requested.
+ */
+@ServiceProviders({
+    @ServiceProvider(service = DataAccessPlugin.class)
+    ,
+    @ServiceProvider(service = Plugin.class)
+})
+@NbBundle.Messages("SimulateWorldPlugin=Simulate World")
+public class SimulateWorldPlugin extends RecordStoreQueryPlugin implements DataAccessPlugin {
+
+    public static final String NUMBER_OF_DAYS_PARAMETER_ID = PluginParameter.buildId(SimulateWorldPlugin.class, "num_days");
+    private static final String NUMBER_OF_DAYS_PARAMETER_LABEL = "Number of Days";
+    public static final String SYNCHRONOUS_PARAMETER_ID = PluginParameter.buildId(SimulateWorldPlugin.class, "synchronous");
+    private static final String SYNCHRONOUS_PARAMETER_LABEL = "Synchronous";
+    public static final String TOP_CITIES_PARAMETER_ID = PluginParameter.buildId(SimulateWorldPlugin.class, "top_cities");
+    private static final String TOP_CITIES_PARAMETER_LABEL = "Most Afflicted Cities";
+    public static final String INCLUDE_FLIGHTS_PARAMETER_ID = PluginParameter.buildId(SimulateWorldPlugin.class, "include_flights");
+    private static final String INCLUDE_FLIGHTS_PARAMETER_LABEL = "Include Flights";
+
+    @Override
+    public PluginParameters createParameters() {
+        final PluginParameters parameters = new PluginParameters();
+
+        final PluginParameter<DateTimeRangeParameterValue> datetime = CoreGlobalParameters.DATETIME_RANGE_PARAMETER;
+        parameters.addParameter(datetime);
+
+        final PluginParameter<IntegerParameterValue> daysParameter = IntegerParameterType.build(NUMBER_OF_DAYS_PARAMETER_ID, new IntegerParameterValue(30));
+        daysParameter.setName(NUMBER_OF_DAYS_PARAMETER_LABEL);
+        IntegerParameterType.setMinimum(daysParameter, 1);
+        parameters.addParameter(daysParameter);
+
+        final PluginParameter<BooleanParameterValue> synchronousParameter = BooleanParameterType.build(SYNCHRONOUS_PARAMETER_ID);
+        synchronousParameter.setName(SYNCHRONOUS_PARAMETER_LABEL);
+        synchronousParameter.setDescription("Spread every city from the outbreaks at the start of each day, in parallel, so that the result does not depend on the order of the cities");
+        synchronousParameter.setBooleanValue(false);
+        parameters.addParameter(synchronousParameter);
+
+        final PluginParameter<IntegerParameterValue> topCitiesParameter = IntegerParameterType.build(TOP_CITIES_PARAMETER_ID, new IntegerParameterValue(100));
+        topCitiesParameter.setName(TOP_CITIES_PARAMETER_LABEL);
+        topCitiesParameter.setDescription("The number of the most afflicted cities to add to the graph once the simulation has finished");
+        IntegerParameterType.setMinimum(topCitiesParameter, 0);
+        parameters.addParameter(topCitiesParameter);
+
+        final PluginParameter<BooleanParameterValue> includeFlightsParameter = BooleanParameterType.build(INCLUDE_FLIGHTS_PARAMETER_ID);
+        includeFlightsParameter.setName(INCLUDE_FLIGHTS_PARAMETER_LABEL);
+        includeFlightsParameter.setDescription("Also add the flights in the date range between the cities added to the graph");
+        includeFlightsParameter.setBooleanValue(true);
+        parameters.addParameter(includeFlightsParameter);
+
+        return parameters;
+    }
+
+    @Override
+    protected RecordStore query(final RecordStore query, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException, PluginException {
+        OutbreakUtilities.awaitData(interaction);
+
+        final DateTimeRange datetimeRange = parameters.getDateTimeRangeValue(CoreGlobalParameters.DATETIME_RANGE_PARAMETER_ID);
+        final long startTime = datetimeRange.getZonedStartEnd()[0].toInstant().toEpochMilli();
+        final long endTime = datetimeRange.getZonedStartEnd()[1].toInstant().toEpochMilli();
+        final int numberOfDays = parameters.getIntegerValue(NUMBER_OF_DAYS_PARAMETER_ID);
+        final boolean synchronous = parameters.getBooleanValue(SYNCHRONOUS_PARAMETER_ID);
+        final int topCities = parameters.getIntegerValue(TOP_CITIES_PARAMETER_ID);
+        final boolean includeFlights = parameters.getBooleanValue(INCLUDE_FLIGHTS_PARAMETER_ID);
+
+        interaction.setProgress(0, numberOfDays, "Building the flight network", true);
+        final WorldSimulation world = WorldSimulation.forCities(startTime, endTime);
+        for (int day = 0; day < numberOfDays; day++) {
+            interaction.setProgress(day, numberOfDays, "Simulating day " + (day + 1) + " of " + numberOfDays, true);
+            world.spread(1, synchronous);
+        }
+
+        final int[] mostAfflicted = world.getMostAfflicted(topCities);
+        final BitSet included = new BitSet(world.getNetwork().getVertexCount());
+        for (final int cityId : mostAfflicted) {
+            included.set(cityId);
+        }
+
+        final RecordStore result = new GraphRecordStore();
+        for (int i = 0; i < mostAfflicted.length; i++) {
+            final OutbreakUtilities.City city = OutbreakUtilities.getCity(mostAfflicted[i]);
+            interaction.setProgress(i, mostAfflicted.length, "Adding: " + city.getName(), true);
+
+            result.add();
+            OutbreakUtilities.addCityToRecord(city, result, GraphRecordStoreUtilities.SOURCE);
+            setOutbreak(world, city, result, GraphRecordStoreUtilities.SOURCE);
+
+            if (includeFlights) {
+                for (final OutbreakUtilities.Flight flight : OutbreakUtilities.getFlights(city.getName(), startTime, endTime)) {
+                    // Each flight is added once, from the city it departs.
+                    if (flight.getSource().getId() == city.getId() && included.get(flight.getDestination().getId())) {
+                        result.add();
+                        OutbreakUtilities.addFlightToRecord(flight, result);
+                        setOutbreak(world, flight.getSource(), result, GraphRecordStoreUtilities.SOURCE);
+                        setOutbreak(world, flight.getDestination(), result, GraphRecordStoreUtilities.DESTINATION);
+                    }
+                }
+            }
+        }
+
+        interaction.setProgress(0, 0, "Finished", true);
+        interaction.notify(PluginNotificationLevel.INFO, "Simulated " + numberOfDays + " days across " + world.getNetwork().getCityCount()
+                + " cities: " + world.getAfflictedCityCount() + " cities afflicted, " + mostAfflicted.length + " added to the graph");
+
+        return result;
+    }
+
+    /**
+     * Replaces the original outbreak of a city in the current row with its
+     * simulated outbreak.
+     */
+    private static void setOutbreak(final WorldSimulation world, final OutbreakUtilities.City city, final RecordStore record, final String category) {
+        final Outbreak outbreak = world.getOutbreak(city.getId());
+        if (outbreak != null) {
+            record.set(category + "Outbreak", outbreak);
+        }
+    }
+
+    @Override
+    public String getType() {
+        return DataAccessPluginCoreType.EXPERIMENTAL;
+    }
+
+    @Override
+    public int getPosition() {
+        return 3;
+    }
+}
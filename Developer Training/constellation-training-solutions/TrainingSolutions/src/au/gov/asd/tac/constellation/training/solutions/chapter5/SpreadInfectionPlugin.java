@@ -17,7 +17,6 @@ package au.gov.asd.tac.constellation.training.solutions.chapter5;
 
 import au.gov.asd.tac.constellation.graph.Graph;
 import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
-import au.gov.asd.tac.constellation.graph.schema.analytic.concept.AnalyticConcept;
 import au.gov.asd.tac.constellation.plugins.Plugin;
 import au.gov.asd.tac.constellation.plugins.PluginException;
 import au.gov.asd.tac.constellation.plugins.PluginInfo;
@@ -25,19 +24,37 @@ import au.gov.asd.tac.constellation.plugins.PluginInteraction;
 import au.gov.asd.tac.constellation.plugins.PluginType;
 import au.gov.asd.tac.constellation.plugins.parameters.PluginParameter;
 import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
+import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType.BooleanParameterValue;
 import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType;
 import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType.IntegerParameterValue;
 import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
 import au.gov.asd.tac.constellation.training.solutions.Outbreak;
-import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities;
 import au.gov.asd.tac.constellation.training.solutions.chapter3.PandemicConcept;
-import java.util.ArrayList;
-import java.util.List;
 import org.openide.util.NbBundle;
 import org.openide.util.lookup.ServiceProvider;
 
 /**
  * Spread Infection Plugin.
+ * <p>
+ * By default each city is spread in turn, so later cities see the already
+ * spread outbreaks of earlier ones. In synchronous mode every city is spread
+ * from the outbreaks at the start of the run, computed in parallel and then
+ * written back in a single pass. Both modes run on the cached
+ * {@link PandemicNetwork} of the graph.
+ * <p>
+ * Only the frontier of the outbreaks is spread, by {@link FrontierSpread}:
+ * the cities that are afflicted and the cities with passengers flying in from
+ * an afflicted city. Other cities have nothing to spread and are left
+ * untouched, so early in an outbreak a run costs in proportion to the
+ * afflicted neighbourhood rather than the whole graph. Only the cities whose
+ * outbreak changed are written to the graph.
+ * <p>
+ * Each run is recorded as a checkpoint in the {@link OutbreakHistory} of the
+ * graph, numbered by the days spread since the history started, so that
+ * {@link JumpToDayPlugin} can return to any earlier day without undoing every
+ * run in between. A new history is started whenever the outbreaks or the
+ * structure of the graph have been changed by anything else.
  */
 @ServiceProvider(service = Plugin.class)
 @NbBundle.Messages("SpreadInfectionPlugin=Spread Infection")
@@ -46,6 +63,8 @@ public class SpreadInfectionPlugin extends SimpleEditPlugin {
 
     public static final String NUMBER_OF_DAYS_PARAMETER_ID = PluginParameter.buildId(SpreadInfectionPlugin.class, "num_days");
     private static final String NUMBER_OF_DAYS_PARAMETER_LABEL = "Number of Days";
+    public static final String SYNCHRONOUS_PARAMETER_ID = PluginParameter.buildId(SpreadInfectionPlugin.class, "synchronous");
+    private static final String SYNCHRONOUS_PARAMETER_LABEL = "Synchronous";
 
     @Override
     public PluginParameters createParameters() {
@@ -53,6 +72,11 @@ public class SpreadInfectionPlugin extends SimpleEditPlugin {
         final PluginParameter diseaseParameter = IntegerParameterType.build(NUMBER_OF_DAYS_PARAMETER_ID, new IntegerParameterValue(1));
         diseaseParameter.setName(NUMBER_OF_DAYS_PARAMETER_LABEL);
         parameters.addParameter(diseaseParameter);
+        final PluginParameter<BooleanParameterValue> synchronousParameter = BooleanParameterType.build(SYNCHRONOUS_PARAMETER_ID);
+        synchronousParameter.setName(SYNCHRONOUS_PARAMETER_LABEL);
+        synchronousParameter.setDescription("Spread every city from the outbreaks at the start of the run, in parallel, so that the result does not depend on the order of the cities");
+        synchronousParameter.setBooleanValue(false);
+        parameters.addParameter(synchronousParameter);
         return parameters;
     }
 
@@ -60,38 +84,25 @@ public class SpreadInfectionPlugin extends SimpleEditPlugin {
     protected void edit(final GraphWriteMethods writableGraph, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException, PluginException {
         final int numberOfDays = parameters.getIntegerValue(NUMBER_OF_DAYS_PARAMETER_ID);
         final int outbreakAttributeId = PandemicConcept.VertexAttribute.OUTBREAK.get(writableGraph);
-        final int vertexTypeAttributeId = AnalyticConcept.VertexAttribute.TYPE.get(writableGraph);
-        final int transactionTypeAttributeId = AnalyticConcept.TransactionAttribute.TYPE.get(writableGraph);
-        final int populationAttributeId = PandemicConcept.VertexAttribute.POPULATION.get(writableGraph);
-        final int passengersAttributeId = PandemicConcept.TransactionAttribute.NUMBER_OF_PASSENGERS.get(writableGraph);
-        if (outbreakAttributeId != Graph.NOT_FOUND && vertexTypeAttributeId != Graph.NOT_FOUND && transactionTypeAttributeId != Graph.NOT_FOUND && populationAttributeId != Graph.NOT_FOUND) {
-            for (int vertexPosition = 0; vertexPosition < writableGraph.getVertexCount(); vertexPosition++) {
-                final int vertexId = writableGraph.getVertex(vertexPosition);
-                final Outbreak outbreak = writableGraph.getObjectValue(outbreakAttributeId, vertexId);
-                final int population = writableGraph.getIntValue(populationAttributeId, vertexId);
-                if (PandemicConcept.VertexType.CITY.equals(writableGraph.getObjectValue(vertexTypeAttributeId, vertexId))) {
-                    List<Outbreak> neighbourOutbreaks = new ArrayList<>();
-                    List<Integer> neighbourPopulations = new ArrayList<>();
-                    List<Integer> neighbourDailyFilghtVolumes = new ArrayList<>();
-                    for (int vertexNeighbourPosition = 0; vertexNeighbourPosition < writableGraph.getVertexNeighbourCount(vertexId); vertexNeighbourPosition++) {
-                        final int neighbourId = writableGraph.getVertexNeighbour(vertexId, vertexNeighbourPosition);
-                        final int neighbourLink = writableGraph.getLink(vertexId, neighbourId);
-                        final Outbreak neighbourOutbreak = writableGraph.getObjectValue(outbreakAttributeId, neighbourId);
-                        int passengerTotal = 0;
-                        for (int neighbourTransactionPosition = 0; neighbourTransactionPosition < writableGraph.getLinkTransactionCount(neighbourLink); neighbourTransactionPosition++) {
-                            final int neighbourTransactionId = writableGraph.getLinkTransaction(neighbourLink, neighbourTransactionPosition);
-                            if (PandemicConcept.TransactionType.FLIGHT.equals(writableGraph.getObjectValue(transactionTypeAttributeId, neighbourTransactionId)) && writableGraph.getTransactionDestinationVertex(neighbourTransactionId) == vertexId) {
-                                passengerTotal += writableGraph.getIntValue(passengersAttributeId, neighbourTransactionId);
-                            }
-                        }
-                        if (neighbourOutbreak != null && passengerTotal > 0) {
-                            neighbourOutbreaks.add(neighbourOutbreak);
-                            neighbourPopulations.add(writableGraph.getIntValue(populationAttributeId, neighbourId));
-                            neighbourDailyFilghtVolumes.add(passengerTotal);
-                        }
-                    }
-                    writableGraph.setObjectValue(outbreakAttributeId, vertexId, OutbreakUtilities.spreadDisease(outbreak, population, neighbourOutbreaks, neighbourPopulations, neighbourDailyFilghtVolumes, numberOfDays));
-                }
+        final PandemicNetwork network = PandemicNetwork.get(writableGraph);
+        if (outbreakAttributeId != Graph.NOT_FOUND && network != null) {
+            final Outbreak[] outbreaks = network.readOutbreaks(writableGraph, outbreakAttributeId);
+            GraphOutbreakHistory graphHistory = GraphOutbreakHistory.get(writableGraph);
+            if (graphHistory == null || !graphHistory.isCurrent(writableGraph, outbreakAttributeId)) {
+                graphHistory = GraphOutbreakHistory.start(writableGraph, outbreaks, outbreakAttributeId);
+            }
+
+            final int[] changed = FrontierSpread.spread(network, outbreaks, numberOfDays, parameters.getBooleanValue(SYNCHRONOUS_PARAMETER_ID));
+            for (final int vertex : changed) {
+                writableGraph.setObjectValue(outbreakAttributeId, network.getVertexId(vertex), outbreaks[vertex]);
+            }
+
+            // A run over no days is not a new day, and leaves the history to
+            // be restarted if it changed anything.
+            if (numberOfDays > 0) {
+                final OutbreakHistory history = graphHistory.getHistory();
+                history.record(history.getDay() + numberOfDays, outbreaks, changed);
+                graphHistory.setCurrent(writableGraph, outbreakAttributeId);
             }
         }
     }
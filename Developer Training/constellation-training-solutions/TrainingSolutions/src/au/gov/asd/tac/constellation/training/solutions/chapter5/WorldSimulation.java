@@ -0,0 +1,297 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions.chapter5;
+
+import au.gov.asd.tac.constellation.training.solutions.Outbreak;
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * World Simulation.
+ * <p>
+ * Spreads outbreaks over a {@link PandemicNetwork} held entirely in memory,
+ * without a graph, using the same model and frontier as
+ * {@link SpreadInfectionPlugin}. Built with {@link #forCities(long, long)} it
+ * simulates every city known to {@link OutbreakUtilities}, with no record
+ * store, schema or graph storage in between, and the results can be read per
+ * city or narrowed down to the most afflicted cities before anything is
+ * added to a graph.
+ * <p>
+ * The outbreaks are held by vertex index, which for a network built from the
+ * cities is the city id. Unless created without a history, every spread is
+ * recorded as a checkpoint in an {@link OutbreakHistory}, so the simulation
+ * can jump back to any earlier day and spread on from there. A caller that
+ * keeps its own history, such as the history of a graph, creates the
+ * simulation without one so that each day is not recorded twice.
+ * <p>
+ * An {@link InterventionSchedule} can be set to treat, cure and ban travel
+ * during the simulation. The interventions of each day are applied to the
+ * outbreak array at the start of that day, and the travel bans in effect
+ * change the passengers spread with, so a containment strategy costs no more
+ * to simulate than the spread itself.
+ */
+public final class WorldSimulation {
+
+    private final PandemicNetwork network;
+    private final Outbreak[] outbreaks;
+    private final OutbreakHistory history;
+    private InterventionSchedule schedule = null;
+    private int day = 0;
+
+    /**
+     * Creates a simulation of the specified network that records every
+     * spread.
+     *
+     * @param network the network to simulate.
+     * @param outbreaks the initial outbreak of every vertex in the network,
+     * which may be null.
+     */
+    public WorldSimulation(final PandemicNetwork network, final Outbreak[] outbreaks) {
+        this(network, outbreaks, true);
+    }
+
+    /**
+     * Creates a simulation of the specified network.
+     *
+     * @param network the network to simulate.
+     * @param outbreaks the initial outbreak of every vertex in the network,
+     * which may be null.
+     * @param recorded true to record every spread so that the simulation can
+     * jump between days, or false to keep no history.
+     */
+    public WorldSimulation(final PandemicNetwork network, final Outbreak[] outbreaks, final boolean recorded) {
+        if (outbreaks.length != network.getVertexCount()) {
+            throw new IllegalArgumentException("There must be one outbreak for each vertex");
+        }
+        this.network = network;
+        this.outbreaks = outbreaks.clone();
+        this.history = recorded ? new OutbreakHistory(outbreaks, 0) : null;
+    }
+
+    /**
+     * Creates a simulation of every city known to {@link OutbreakUtilities},
+     * seeded with their current outbreaks, with the passengers of every flight
+     * departing within the specified range.
+     *
+     * @param startTime the start of the departure time range in milliseconds
+     * since the epoch.
+     * @param endTime the end of the departure time range in milliseconds since
+     * the epoch, inclusive.
+     * @return a simulation of every city.
+     */
+    public static WorldSimulation forCities(final long startTime, final long endTime) {
+        final PandemicNetwork network = PandemicNetwork.forCities(startTime, endTime);
+        final Outbreak[] outbreaks = new Outbreak[network.getVertexCount()];
+        for (int cityId = 0; cityId < outbreaks.length; cityId++) {
+            outbreaks[cityId] = OutbreakUtilities.getCity(cityId).getOutbreak();
+        }
+        return new WorldSimulation(network, outbreaks);
+    }
+
+    /**
+     * Spreads the outbreaks once over the specified number of days, exactly
+     * as a single run of {@link SpreadInfectionPlugin} would on a graph of the
+     * same network. If the simulation has jumped back to an earlier day, the
+     * checkpoints after that day are discarded.
+     * <p>
+     * With an intervention schedule, the run is split at the start of each
+     * day with interventions, where they are applied before spreading on.
+     *
+     * @param numberOfDays the number of days over which to spread, which must
+     * be at least 1.
+     * @param synchronous true to spread every city from the outbreaks at the
+     * start of the run, in parallel, or false to spread each city in turn.
+     * @return the vertices whose outbreak changed, in ascending order.
+     */
+    public int[] spread(final int numberOfDays, final boolean synchronous) {
+        if (numberOfDays < 1) {
+            throw new IllegalArgumentException("The number of days must be at least 1");
+        }
+        if (schedule == null) {
+            final int[] changed = FrontierSpread.spread(network, outbreaks, numberOfDays, synchronous);
+            day += numberOfDays;
+            if (history != null) {
+                history.record(day, outbreaks, changed);
+            }
+            return changed;
+        }
+
+        final BitSet changed = new BitSet(outbreaks.length);
+        final int lastDay = day + numberOfDays;
+        while (day < lastDay) {
+            final int nextDay = day + 1;
+            for (final int vertex : schedule.apply(nextDay, outbreaks)) {
+                changed.set(vertex);
+            }
+            final int days = Math.min(lastDay, schedule.getNextDay(nextDay + 1) - 1) - day;
+            for (final int vertex : FrontierSpread.spread(network, schedule.getPassengers(nextDay), outbreaks, days, synchronous)) {
+                changed.set(vertex);
+            }
+            day += days;
+        }
+        final int[] changedVertices = changed.stream().toArray();
+        if (history != null) {
+            history.record(day, outbreaks, changedVertices);
+        }
+        return changedVertices;
+    }
+
+    /**
+     * Sets the interventions to apply from the next day spread onwards.
+     * Interventions scheduled on days that have already been spread are not
+     * applied, unless the simulation jumps back before them.
+     *
+     * @param schedule the schedule, compiled against the network of this
+     * simulation, or null for no interventions.
+     */
+    public void setSchedule(final InterventionSchedule schedule) {
+        if (schedule != null && schedule.getNetwork() != network) {
+            throw new IllegalArgumentException("The schedule must be compiled against the network of the simulation");
+        }
+        this.schedule = schedule;
+    }
+
+    /**
+     * Returns the outbreaks to their state at the end of an earlier or later
+     * recorded day.
+     *
+     * @param newDay the day to jump to, which must be 0 or a day reached by
+     * {@link #spread(int, boolean)}.
+     * @return the vertices whose outbreak changed, in ascending order.
+     * @throws IllegalStateException if the simulation keeps no history.
+     */
+    public int[] jumpTo(final int newDay) {
+        if (history == null) {
+            throw new IllegalStateException("The simulation keeps no history");
+        }
+        final int[] changed = history.jumpTo(newDay);
+        for (final int vertex : changed) {
+            outbreaks[vertex] = history.getOutbreak(vertex);
+        }
+        day = newDay;
+        return changed;
+    }
+
+    /**
+     * Returns the days that can be jumped to, in ascending order.
+     *
+     * @return the recorded days, which are none if the simulation keeps no
+     * history.
+     */
+    public int[] getRecordedDays() {
+        return history == null ? new int[0] : history.getDays();
+    }
+
+    /**
+     * Returns the network being simulated.
+     *
+     * @return the network being simulated.
+     */
+    public PandemicNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * Returns the number of days spread so far.
+     *
+     * @return the number of days spread so far.
+     */
+    public int getDay() {
+        return day;
+    }
+
+    /**
+     * Returns the current outbreak of the specified vertex.
+     *
+     * @param vertex the index of the vertex.
+     * @return the outbreak of the vertex, which may be null.
+     */
+    public Outbreak getOutbreak(final int vertex) {
+        return outbreaks[vertex];
+    }
+
+    /**
+     * Returns a copy of the current outbreak of every vertex.
+     *
+     * @return the outbreak of every vertex, indexed by vertex.
+     */
+    public Outbreak[] getOutbreaks() {
+        return outbreaks.clone();
+    }
+
+    /**
+     * Returns the number of people afflicted in the specified vertex, counting
+     * a person once for each disease.
+     *
+     * @param vertex the index of the vertex.
+     * @return the afflicted population of the vertex.
+     */
+    public long getAfflicted(final int vertex) {
+        final Outbreak outbreak = outbreaks[vertex];
+        long afflicted = 0;
+        if (outbreak != null) {
+            for (final int count : outbreak.getOutbreakData().values()) {
+                afflicted += count;
+            }
+        }
+        return afflicted;
+    }
+
+    /**
+     * Returns the number of cities with at least one afflicted person.
+     *
+     * @return the number of afflicted cities.
+     */
+    public int getAfflictedCityCount() {
+        int afflictedCities = 0;
+        for (int city = 0; city < network.getCityCount(); city++) {
+            if (FrontierSpread.isAfflicted(outbreaks[network.getCity(city)])) {
+                afflictedCities++;
+            }
+        }
+        return afflictedCities;
+    }
+
+    /**
+     * Returns the afflicted cities with the most afflicted people, most
+     * afflicted first, with ties in vertex order.
+     *
+     * @param count the maximum number of cities to return.
+     * @return the vertex indices of up to count cities.
+     */
+    public int[] getMostAfflicted(final int count) {
+        final long[] keys = new long[network.getCityCount()];
+        int afflictedCities = 0;
+        for (int city = 0; city < network.getCityCount(); city++) {
+            final int vertex = network.getCity(city);
+            final long afflicted = getAfflicted(vertex);
+            if (afflicted > 0) {
+                // Afflicted populations are ints summed over a handful of
+                // diseases, so they fit above the vertex in a single key that
+                // sorts by afflicted and then by vertex.
+                keys[afflictedCities++] = (afflicted << 32) | (Integer.MAX_VALUE - vertex);
+            }
+        }
+        Arrays.sort(keys, 0, afflictedCities);
+
+        final int[] mostAfflicted = new int[Math.max(0, Math.min(count, afflictedCities))];
+        for (int i = 0; i < mostAfflicted.length; i++) {
+            mostAfflicted[i] = Integer.MAX_VALUE - (int) keys[afflictedCities - 1 - i];
+        }
+        return mostAfflicted;
+    }
+}
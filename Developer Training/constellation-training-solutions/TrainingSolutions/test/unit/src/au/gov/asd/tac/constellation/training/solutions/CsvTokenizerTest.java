@@ -0,0 +1,280 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Csv Tokenizer Test.
+ * <p>
+ * Checks the allocation free number parsing of {@link CsvTokenizer} against
+ * {@link Long#parseLong(String)} and {@link Float#parseFloat(String)}, and the
+ * way it splits input into records.
+ */
+public class CsvTokenizerTest {
+
+    private static final String[] LONGS = {
+        "0", "-0", "+0", "7", "-7", "+7", "0001", "-0001",
+        "2147483647", "2147483648", "-2147483648", "-2147483649",
+        "9223372036854775807", "-9223372036854775808",
+        "9223372036854775808", "-9223372036854775809",
+        "9223372036854775810", "-9223372036854775810",
+        "92233720368547758070", "99999999999999999999",
+        "", "-", "+", "--1", "+-1", "1-", "1 ", " 1", "1.0", "1e3", "0x10", "abc"
+    };
+
+    private static final String[] FLOATS = {
+        "0", "-0", "+0", "0.0", "-0.0", "0.", ".0", ".5", "5.", "-.5", "1", "1.5", "-1.5", "+1.5",
+        "0.1", "0.2", "0.3", "3.14159", "-33.8688", "151.2093", "123456.789",
+        "16777216", "16777217", "16777218", "16777219", "33554433", "33554435",
+        "1073741888", "1073741952", "1073742016", "274877907008",
+        "999999999999999", "9999999999999999", "1234567890123456789",
+        "0.000000000000001", "0.0000000000000000000001", "0.00000000000000000000001",
+        "1.17549435E-38", "0.0000000000000000000000000000000000000117549435",
+        "1.4E-45", "7.0E-46", "3.4028235E38", "3.4028236E38", "340282356779733661637539395458142568448",
+        "1e5", "1E-5", "-2.5e+3", "NaN", "Infinity", "-Infinity",
+        "", ".", "-", "+", "-.", "1.2.3", "1..2", "1 ", " 1", "abc", "1f", "0x1p3"
+    };
+
+    @Test
+    public void testNextLongMatchesParseLong() throws IOException {
+        for (final String value : LONGS) {
+            assertParsesLike(value, Long.class);
+        }
+    }
+
+    @Test
+    public void testNextIntMatchesParseInt() throws IOException {
+        for (final String value : LONGS) {
+            assertParsesLike(value, Integer.class);
+        }
+    }
+
+    @Test
+    public void testNextFloatMatchesParseFloat() throws IOException {
+        for (final String value : FLOATS) {
+            assertParsesLike(value, Float.class);
+        }
+    }
+
+    @Test
+    public void testNextFloatRoundsHalfwayIntegersToEven() throws IOException {
+        // Every odd integer between 2^24 and 2^25 lies exactly halfway between
+        // two floats, as do the odd multiples of 2^k between 2^(24+k) and
+        // 2^(25+k), so narrowing the double must not be trusted for them.
+        for (int shift = 0; shift < 20; shift++) {
+            final long base = 1L << (24 + shift);
+            for (long step = 1; step < 64; step += 2) {
+                assertParsesLike(Long.toString(base + (step << shift)), Float.class);
+                assertParsesLike("-" + (base + (step << shift)), Float.class);
+            }
+        }
+    }
+
+    @Test
+    public void testNextFloatMatchesParseFloatOnRandomDecimals() throws IOException {
+        final Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            final int digits = 1 + random.nextInt(17);
+            final StringBuilder value = new StringBuilder();
+            if (random.nextBoolean()) {
+                value.append('-');
+            }
+            for (int digit = 0; digit < digits; digit++) {
+                value.append((char) ('0' + random.nextInt(10)));
+            }
+            value.insert(value.length() - random.nextInt(digits + 1), '.');
+            assertParsesLike(value.toString(), Float.class);
+        }
+    }
+
+    @Test
+    public void testNextFloatMatchesParseFloatOnFloatsAndNeighbours() throws IOException {
+        final Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            final float f = Float.intBitsToFloat(random.nextInt(0x7F800000));
+            // The shortest representation of a float, and the midpoint above
+            // it rounded to 15 digits, which lands just either side of it.
+            assertParsesLike(new BigDecimal(Float.toString(f)).toPlainString(), Float.class);
+            final double up = ((double) f + Math.nextUp(f)) / 2;
+            assertParsesLike(new BigDecimal(up).round(new MathContext(15)).toPlainString(), Float.class);
+        }
+    }
+
+    @Test
+    public void testOnlyNewlineEndsARecord() throws IOException {
+        assertEquals(List.of(List.of("a", "b"), List.of("c")), readAll("a,b\nc"));
+        assertEquals(List.of(List.of("a", "b"), List.of("c")), readAll("a,b\r\nc\r\n"));
+        assertEquals(List.of(List.of("a\rb", "c")), readAll("a\rb,c\n"));
+        assertEquals(List.of(List.of("a\r")), readAll("a\r\r\n"));
+        assertEquals(List.of(List.of("\rx")), readAll("\r\n\rx\r"));
+    }
+
+    @Test
+    public void testBlankLinesAreSkippedButCounted() throws IOException {
+        try (final CsvTokenizer tokenizer = new CsvTokenizer(ByteBuffer.wrap("\n\r\na\n\n\nb".getBytes(StandardCharsets.ISO_8859_1)))) {
+            assertTrue(tokenizer.nextRecord());
+            assertEquals(3, tokenizer.getLineNumber());
+            assertEquals("a", tokenizer.nextString());
+            assertTrue(tokenizer.nextRecord());
+            assertEquals(6, tokenizer.getLineNumber());
+            assertEquals("b", tokenizer.nextString());
+            assertFalse(tokenizer.nextRecord());
+            assertFalse(tokenizer.nextRecord());
+        }
+    }
+
+    @Test
+    public void testEmptyFields() throws IOException {
+        assertEquals(List.of(List.of("", "a", "", "")), readAll(",a,,\n"));
+        assertEquals(List.of(List.of("a", "")), readAll("a,\r\n"));
+    }
+
+    @Test
+    public void testRecordsSpanningReads() throws IOException {
+        final StringBuilder text = new StringBuilder();
+        final List<List<String>> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            final String name = "city" + i + "x".repeat(i % 97);
+            text.append(name).append(',').append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+            expected.add(List.of(name, Integer.toString(i)));
+        }
+        final byte[] bytes = text.toString().getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(expected, readAll(new CsvTokenizer(new OneByteInputStream(bytes))));
+        assertEquals(expected, readAll(new CsvTokenizer(new ByteArrayInputStream(bytes))));
+        assertEquals(expected, readAll(new CsvTokenizer(ByteBuffer.wrap(bytes))));
+    }
+
+    @Test
+    public void testRecordLongerThanBuffer() throws IOException {
+        final String field = "y".repeat(200000);
+        assertEquals(List.of(List.of(field, "1"), List.of("z")), readAll(new CsvTokenizer(new ByteArrayInputStream((field + ",1\nz").getBytes(StandardCharsets.ISO_8859_1)))));
+    }
+
+    @Test
+    public void testPooledStringsAreShared() throws IOException {
+        try (final CsvTokenizer tokenizer = new CsvTokenizer(ByteBuffer.wrap("QF,QF\nQF,VA\n".getBytes(StandardCharsets.ISO_8859_1)))) {
+            assertTrue(tokenizer.nextRecord());
+            final String first = tokenizer.nextPooledString();
+            assertSame(first, tokenizer.nextPooledString());
+            assertTrue(tokenizer.nextRecord());
+            assertSame(first, tokenizer.nextPooledString());
+            assertEquals("VA", tokenizer.nextPooledString());
+            assertFalse(tokenizer.hasMoreFields());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooFewFields() throws IOException {
+        try (final CsvTokenizer tokenizer = new CsvTokenizer(ByteBuffer.wrap("a\n".getBytes(StandardCharsets.ISO_8859_1)))) {
+            tokenizer.nextRecord();
+            tokenizer.skipField();
+            tokenizer.skipField();
+        }
+    }
+
+    /**
+     * Checks that the tokenizer reads the value, followed by a second field
+     * to make sure the cursor stopped at the separator, exactly as the
+     * standard parser does, or that both reject it.
+     */
+    private static void assertParsesLike(final String value, final Class<?> type) throws IOException {
+        Object expected;
+        try {
+            expected = type == Long.class ? Long.parseLong(value) : type == Integer.class ? Integer.parseInt(value) : Float.parseFloat(value);
+        } catch (final NumberFormatException ex) {
+            expected = null;
+        }
+        try (final CsvTokenizer tokenizer = new CsvTokenizer(ByteBuffer.wrap((value + ",next\n").getBytes(StandardCharsets.ISO_8859_1)))) {
+            assertTrue(tokenizer.nextRecord());
+            Object actual;
+            try {
+                actual = type == Long.class ? tokenizer.nextLong() : type == Integer.class ? tokenizer.nextInt() : tokenizer.nextFloat();
+            } catch (final NumberFormatException ex) {
+                actual = null;
+            }
+            if (expected instanceof Float && actual instanceof Float) {
+                assertEquals("Parsing \"" + value + "\"", Float.floatToIntBits((Float) expected), Float.floatToIntBits((Float) actual));
+            } else {
+                assertEquals("Parsing \"" + value + "\"", expected, actual);
+            }
+            assertEquals("next", tokenizer.nextString());
+        }
+    }
+
+    private static List<List<String>> readAll(final String text) throws IOException {
+        return readAll(new CsvTokenizer(ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1))));
+    }
+
+    private static List<List<String>> readAll(final CsvTokenizer tokenizer) throws IOException {
+        final List<List<String>> records = new ArrayList<>();
+        try (tokenizer) {
+            while (tokenizer.nextRecord()) {
+                final List<String> fields = new ArrayList<>();
+                while (tokenizer.hasMoreFields()) {
+                    fields.add(tokenizer.nextString());
+                }
+                records.add(fields);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * A stream that returns at most one byte per read, so that every record
+     * crosses a refill of the tokenizer's buffer.
+     */
+    private static final class OneByteInputStream extends InputStream {
+
+        private final byte[] bytes;
+        private int position = 0;
+
+        private OneByteInputStream(final byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return position < bytes.length ? bytes[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] destination, final int offset, final int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position == bytes.length) {
+                return -1;
+            }
+            destination[offset] = bytes[position++];
+            return 1;
+        }
+    }
+}
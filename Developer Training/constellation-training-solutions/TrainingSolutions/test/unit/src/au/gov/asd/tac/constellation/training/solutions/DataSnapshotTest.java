@@ -0,0 +1,189 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Data Snapshot Test.
+ * <p>
+ * Checks that a snapshot is read back as it was written, and that a corrupt
+ * snapshot is deleted and reported as unreadable, leaving no cities behind,
+ * so that the data files are parsed instead and the corrupt data is never
+ * saved again.
+ */
+public class DataSnapshotTest {
+
+    private File directory;
+    private File snapshotFile;
+    private File[] sources;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot").toFile();
+        snapshotFile = new File(directory, "Pandemic.snapshot");
+        final File citiesFile = new File(directory, "Cities.csv");
+        Files.write(citiesFile.toPath(), "cities".getBytes(StandardCharsets.ISO_8859_1));
+        final File flightsFile = new File(directory, "Flights.csv");
+        Files.write(flightsFile.toPath(), "flights".getBytes(StandardCharsets.ISO_8859_1));
+        sources = new File[]{citiesFile, flightsFile};
+
+        final CityTable cities = new CityTable();
+        final City sydney = new City(0, "Sydney", "Australia", 5000000, -33.8688F, 151.2093F);
+        sydney.setOutbreak(Outbreak.valueOf("SnapshotFlu:12,SnapshotZika:3"));
+        cities.add("sydney", sydney);
+        cities.add("tokyo", new City(1, "Tokyo", "Japan", 14000000, 35.6762F, 139.6503F));
+        final FlightTable flights = new FlightTable();
+        flights.add(0, 1, 1464141600000L, 210, "QF-25");
+        flights.add(1, 0, 1464228000000L, 180, "JL-51");
+        DataSnapshot.write(snapshotFile, sources, cities, flights);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (final File file : directory.listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(directory.toPath());
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final CityTable cities = new CityTable();
+        final DataSnapshot snapshot = OutbreakUtilities.readSnapshotCities(Collections.singletonList(snapshotFile), sources, cities);
+        assertNotNull(snapshot);
+        assertEquals(2, cities.size());
+        assertEquals("Tokyo", cities.find("tokyo").getName());
+        assertEquals(5000000, cities.find("sydney").getPopulation());
+        assertSame(Outbreak.valueOf("SnapshotFlu:12,SnapshotZika:3").intern(), cities.find("sydney").getOutbreak());
+
+        final FlightTable flights = new FlightTable();
+        snapshot.readFlights(flights);
+        assertEquals(2, flights.size());
+        assertEquals(1, flights.getSourceId(1));
+        assertEquals(180, flights.getPassengers(1));
+        assertEquals("QF-25", flights.getAirline(0));
+    }
+
+    @Test
+    public void testNegativeStringCount() throws IOException {
+        corrupt(getStringCountPosition(), -1);
+        assertDiscarded();
+    }
+
+    @Test
+    public void testStringCountPastEnd() throws IOException {
+        corrupt(getStringCountPosition(), Integer.MAX_VALUE);
+        assertDiscarded();
+    }
+
+    @Test
+    public void testNegativeStringLength() throws IOException {
+        corrupt(getStringCountPosition() + Integer.BYTES, -5);
+        assertDiscarded();
+    }
+
+    @Test
+    public void testStringLengthPastEnd() throws IOException {
+        corrupt(getStringCountPosition() + Integer.BYTES, 0x7FFFFF00);
+        assertDiscarded();
+    }
+
+    @Test
+    public void testNegativeCityCount() throws IOException {
+        corrupt(getCitiesPosition(), -1);
+        assertDiscarded();
+    }
+
+    @Test
+    public void testTruncated() throws IOException {
+        final byte[] bytes = Files.readAllBytes(snapshotFile.toPath());
+        Files.write(snapshotFile.toPath(), Arrays.copyOf(bytes, getCitiesPosition() + 10));
+        assertDiscarded();
+    }
+
+    @Test
+    public void testFallsBackToNextSnapshot() throws IOException {
+        final File copy = new File(directory, "Copy.snapshot");
+        Files.copy(snapshotFile.toPath(), copy.toPath());
+        corrupt(getStringCountPosition(), -1);
+        final CityTable cities = new CityTable();
+        assertNotNull(OutbreakUtilities.readSnapshotCities(Arrays.asList(snapshotFile, copy), sources, cities));
+        assertEquals(2, cities.size());
+        assertFalse(snapshotFile.exists());
+    }
+
+    @Test
+    public void testStaleSnapshotIsKept() throws IOException {
+        Files.write(sources[1].toPath(), "more flights".getBytes(StandardCharsets.ISO_8859_1));
+        final CityTable cities = new CityTable();
+        assertNull(OutbreakUtilities.readSnapshotCities(Collections.singletonList(snapshotFile), sources, cities));
+        assertEquals(0, cities.size());
+        assertTrue(snapshotFile.exists());
+    }
+
+    /**
+     * Checks that the snapshot is reported as unreadable, leaving the cities
+     * empty so that they are parsed from the data files, and that the corrupt
+     * file is deleted rather than read again by a later session.
+     */
+    private void assertDiscarded() {
+        final CityTable cities = new CityTable();
+        assertNull(OutbreakUtilities.readSnapshotCities(Collections.singletonList(snapshotFile), sources, cities));
+        assertEquals(0, cities.size());
+        assertFalse(snapshotFile.exists());
+    }
+
+    private void corrupt(final int position, final int value) throws IOException {
+        final byte[] bytes = Files.readAllBytes(snapshotFile.toPath());
+        ByteBuffer.wrap(bytes).putInt(position, value);
+        Files.write(snapshotFile.toPath(), bytes);
+    }
+
+    /**
+     * Returns the position of the string count, after the magic number, the
+     * version and the length and modification time of each source.
+     */
+    private int getStringCountPosition() {
+        return 3 * Integer.BYTES + sources.length * 2 * Long.BYTES;
+    }
+
+    private int getCitiesPosition() throws IOException {
+        final ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(snapshotFile.toPath()));
+        in.position(getStringCountPosition());
+        for (int i = in.getInt(); i > 0; i--) {
+            final int length = in.getInt();
+            in.position(in.position() + length);
+        }
+        return in.position();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ * Outbreak Codec Test.
+ * <p>
+ * Checks that outbreaks survive being written and read back with
+ * {@link OutbreakCodec}, including when the disease dictionary of the reader
+ * numbers the diseases differently to the writer.
+ */
+public class OutbreakCodecTest {
+
+    @Test
+    public void testRoundTrip() {
+        final List<Outbreak> outbreaks = new ArrayList<>();
+        outbreaks.add(null);
+        outbreaks.add(new Outbreak());
+        outbreaks.add(Outbreak.valueOf("CodecFlu:1"));
+        outbreaks.add(Outbreak.valueOf("CodecFlu:-1"));
+        outbreaks.add(Outbreak.valueOf("CodecFlu:2147483647,CodecZika:-2147483648"));
+        outbreaks.add(Outbreak.valueOf("CodecFlu:127,CodecZika:128,CodecEbola:16384,CodecMalaria:-64,CodecRabies:-65"));
+        final Random random = new Random(3);
+        for (int i = 0; i < 1000; i++) {
+            final Outbreak.Builder builder = new Outbreak().edit();
+            for (int disease = random.nextInt(6); disease > 0; disease--) {
+                builder.spread("CodecRandom" + random.nextInt(300), random.nextInt());
+            }
+            outbreaks.add(builder.build());
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (final Outbreak outbreak : outbreaks) {
+            OutbreakCodec.write(outbreak, out);
+        }
+        final ByteBuffer in = ByteBuffer.wrap(out.toByteArray());
+        final int[] diseaseIds = OutbreakCodec.mapDiseases(getDiseaseNames());
+        for (final Outbreak outbreak : outbreaks) {
+            final Outbreak read = OutbreakCodec.read(in, diseaseIds);
+            if (outbreak == null) {
+                assertNull(read);
+            } else {
+                assertEquals(outbreak, read);
+                assertSame(outbreak.intern(), read);
+            }
+        }
+        assertFalse(in.hasRemaining());
+    }
+
+    @Test
+    public void testNullIsOneByte() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutbreakCodec.write(null, out);
+        assertEquals(1, out.size());
+    }
+
+    @Test
+    public void testReadWithDifferentDiseaseIds() {
+        // Read the outbreak back as though the session that wrote it had
+        // numbered the two diseases the other way round, so the ids read are
+        // out of order and the counts must follow their diseases.
+        final Outbreak outbreak = new Outbreak().edit().spread("CodecMeasles", 5).spread("CodecMumps", 7).spread("CodecPox", 9).build();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutbreakCodec.write(outbreak, out);
+
+        final String[] writtenNames = getDiseaseNames();
+        final int measles = DiseaseDictionary.getId("CodecMeasles");
+        final int pox = DiseaseDictionary.getId("CodecPox");
+        writtenNames[measles] = "CodecPox";
+        writtenNames[pox] = "CodecMeasles";
+        final Outbreak read = OutbreakCodec.read(ByteBuffer.wrap(out.toByteArray()), OutbreakCodec.mapDiseases(writtenNames));
+
+        assertSame(new Outbreak().edit().spread("CodecPox", 5).spread("CodecMumps", 7).spread("CodecMeasles", 9).build().intern(), read);
+    }
+
+    @Test
+    public void testMapDiseasesAddsUnknownDiseases() {
+        final int[] diseaseIds = OutbreakCodec.mapDiseases(new String[]{"CodecNew", "CodecFlu", "CodecNew"});
+        assertEquals(3, diseaseIds.length);
+        assertEquals(DiseaseDictionary.getId("CodecNew"), diseaseIds[0]);
+        assertEquals(DiseaseDictionary.getId("CodecFlu"), diseaseIds[1]);
+        assertEquals(diseaseIds[0], diseaseIds[2]);
+        assertEquals("CodecNew", DiseaseDictionary.getName(diseaseIds[0]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadTruncated() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutbreakCodec.write(Outbreak.valueOf("CodecFlu:300,CodecZika:2"), out);
+        final byte[] bytes = out.toByteArray();
+        OutbreakCodec.read(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1)), OutbreakCodec.mapDiseases(getDiseaseNames()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadUnknownDiseaseId() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutbreakCodec.write(Outbreak.valueOf("CodecFlu:3"), out);
+        OutbreakCodec.read(ByteBuffer.wrap(out.toByteArray()), new int[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadZeroCount() {
+        // One disease, with id 0 and a zigzag count of 0.
+        OutbreakCodec.read(ByteBuffer.wrap(new byte[]{2, 0, 0}), OutbreakCodec.mapDiseases(getDiseaseNames()));
+    }
+
+    private static String[] getDiseaseNames() {
+        final String[] names = new String[DiseaseDictionary.size()];
+        for (int id = 0; id < names.length; id++) {
+            names[id] = DiseaseDictionary.getName(id);
+        }
+        return names;
+    }
+}
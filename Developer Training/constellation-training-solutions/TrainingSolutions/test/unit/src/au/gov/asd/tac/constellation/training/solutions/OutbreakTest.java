@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Outbreak Test.
+ * <p>
+ * Checks that {@link Outbreak#valueOf(String)} accepts and rejects the same
+ * text as the original parser, which split the text on commas and colons and
+ * parsed each count with {@link Integer#valueOf(String)}.
+ */
+public class OutbreakTest {
+
+    private static final String[] INPUTS = {
+        "", ",", ",,", "Flu:1", "Flu:1,", "Flu:1,,", "Flu:1,,,", ",Flu:1", "Flu:1,,Zika:2", "Flu:1, Zika:2",
+        "Flu:1,Zika:2", "Zika:2,Flu:1", "Flu:1,Flu:2", "Flu:2,Flu:1", "Flu:1,Flu:0", "Flu:0,Flu:1",
+        "Flu:0", "Flu:-0", "Flu:+0", "Flu:-5", "Flu:+5", "Flu:007", "Flu:-2147483648", "Flu:2147483647",
+        "Flu:2147483648", "Flu:-2147483649", "Flu:99999999999", "Flu:1:5", "Flu:1:", "Flu::5", "Flu:",
+        ":5", ":", "::", "Flu", "Flu,", "Flu:1,Zika", "Flu:1,:", "Flu:1,:2", "Flu: 1", "Flu:1 ", "Flu:1.0",
+        "Flu:1e3", "Flu:0x10", "Flu:-", "Flu:+", "Flu:--1", "Flu:+-1", "Flu:\u0661\u0662", " Flu:1", "Flu :1",
+        "Flu:1,Zika:2,Ebola:-3,Malaria:0", "A:1,B:2,C:3,D:4,E:5,F:6,G:7,H:8,I:9,J:10",
+        "J:10,I:9,H:8,G:7,F:6,E:5,D:4,C:3,B:2,A:1,A:0"
+    };
+
+    @Test
+    public void testValueOfMatchesOriginalParser() {
+        for (final String input : INPUTS) {
+            assertParsesLikeOriginal(input);
+        }
+    }
+
+    @Test
+    public void testValueOfMatchesOriginalParserOnRandomText() {
+        final String alphabet = "FZ::,,,-+0129 ";
+        final Random random = new Random(11);
+        for (int i = 0; i < 200000; i++) {
+            final char[] text = new char[random.nextInt(12)];
+            for (int c = 0; c < text.length; c++) {
+                text[c] = alphabet.charAt(random.nextInt(alphabet.length()));
+            }
+            assertParsesLikeOriginal(new String(text));
+        }
+    }
+
+    @Test
+    public void testValueOfNull() {
+        assertNull(Outbreak.valueOf(null));
+    }
+
+    @Test
+    public void testValueOfRoundTrip() {
+        final Outbreak outbreak = new Outbreak().edit().spread("Flu", 10).spread("Zika", 3).spread("Ebola", -4).build();
+        final Outbreak parsed = Outbreak.valueOf(outbreak.toString());
+        assertEquals(outbreak, parsed);
+        assertSame(outbreak.intern(), parsed);
+        assertEquals(0, Outbreak.valueOf(new Outbreak().toString()).getNumberOfDiseases());
+    }
+
+    /**
+     * Checks that the input is rejected exactly when the original parser
+     * rejected it, and otherwise parses to the same counts. The original
+     * parser kept zero counts in its map, but its constructor and every
+     * edit dropped them, so zero counts are compared as absent.
+     */
+    private static void assertParsesLikeOriginal(final String input) {
+        final Map<String, Integer> expected = originalValueOf(input);
+        Map<String, Integer> actual;
+        try {
+            actual = new HashMap<>(Outbreak.valueOf(input).getOutbreakData());
+        } catch (final IllegalArgumentException ex) {
+            actual = null;
+        }
+        if (expected != null) {
+            expected.values().removeIf(count -> count == 0);
+        }
+        assertEquals("Parsing \"" + input + "\"", expected, actual);
+        if (actual != null) {
+            assertTrue(actual.values().stream().noneMatch(count -> count == 0));
+        }
+    }
+
+    /**
+     * The parser Outbreak.valueOf replaced, returning null where it threw.
+     */
+    private static Map<String, Integer> originalValueOf(final String s) {
+        final Map<String, Integer> outbreakData = new HashMap<>();
+        if (!s.isEmpty()) {
+            final String[] diseases = s.split(",");
+            for (final String disease : diseases) {
+                final String[] nameAndValue = disease.split(":");
+                try {
+                    outbreakData.put(nameAndValue[0], Integer.valueOf(nameAndValue[1]));
+                } catch (final ArrayIndexOutOfBoundsException | NumberFormatException ex) {
+                    return null;
+                }
+            }
+        }
+        return outbreakData;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2010-2024 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.training.solutions;
+
+import au.gov.asd.tac.constellation.training.solutions.OutbreakUtilities.City;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Sorted Flight Reader Test.
+ * <p>
+ * Checks that {@link SortedFlightReader} returns every flight of a source in
+ * departure order, keeping flights that depart at the same time in the order
+ * they were read, whether the flights fit in one run or are spilled to many.
+ */
+public class SortedFlightReaderTest {
+
+    private static final City[] CITIES = {
+        new City("Sydney", "Australia", 5000000, -33.8688F, 151.2093F),
+        new City("Tokyo", "Japan", 14000000, 35.6762F, 139.6503F),
+        new City("Paris", "France", 2100000, 48.8566F, 2.3522F),
+        null
+    };
+
+    @Test
+    public void testSortsInOneRun() throws IOException {
+        assertSortsLike(randomFlights(5000, 1), SortedFlightReader.DEFAULT_RUN_SIZE);
+    }
+
+    @Test
+    public void testSortsAcrossRuns() throws IOException {
+        final List<TestFlight> flights = randomFlights(5000, 2);
+        assertSortsLike(flights, 1000);
+        assertSortsLike(flights, 999);
+        assertSortsLike(flights, 7);
+    }
+
+    @Test
+    public void testSortsAcrossMergedRuns() throws IOException {
+        // More runs than are merged at once, so that runs are merged into
+        // longer runs before the final merge.
+        assertSortsLike(randomFlights(20000, 3), 1);
+        assertSortsLike(randomFlights(20000, 4), 100);
+    }
+
+    @Test
+    public void testEmptySource() throws IOException {
+        try (final SortedFlightReader sorted = SortedFlightReader.sort(new ListReader(new ArrayList<>()), 4)) {
+            assertFalse(sorted.next());
+            assertFalse(sorted.next());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRunSizeMustBePositive() throws IOException {
+        SortedFlightReader.sort(new ListReader(new ArrayList<>()), 0);
+    }
+
+    /**
+     * Checks that the flights come back in the order of a stable sort by
+     * departure time, with the same cities and airlines.
+     */
+    private static void assertSortsLike(final List<TestFlight> flights, final int runSize) throws IOException {
+        final List<TestFlight> expected = new ArrayList<>(flights);
+        expected.sort(Comparator.comparingLong(flight -> flight.departureTime));
+        try (final SortedFlightReader sorted = SortedFlightReader.sort(new ListReader(flights), runSize)) {
+            for (final TestFlight flight : expected) {
+                assertTrue(sorted.next());
+                assertEquals(flight.departureTime, sorted.getDepartureTime());
+                assertSame(flight.source, sorted.getSource());
+                assertSame(flight.destination, sorted.getDestination());
+                assertEquals(flight.passengers, sorted.getPassengers());
+                assertEquals(flight.airline, sorted.getAirline());
+            }
+            assertFalse(sorted.next());
+        }
+    }
+
+    private static List<TestFlight> randomFlights(final int count, final long seed) {
+        final Random random = new Random(seed);
+        final List<TestFlight> flights = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Few distinct times, so that many flights depart together, and a
+            // unique passenger count to tell those flights apart.
+            flights.add(new TestFlight(CITIES[random.nextInt(CITIES.length)], CITIES[random.nextInt(CITIES.length)],
+                    1464141600000L + random.nextInt(200) * 60000L, i, random.nextInt(10) == 0 ? null : "QF-" + random.nextInt(50)));
+        }
+        return flights;
+    }
+
+    private static final class TestFlight {
+
+        private final City source;
+        private final City destination;
+        private final long departureTime;
+        private final int passengers;
+        private final String airline;
+
+        private TestFlight(final City source, final City destination, final long departureTime, final int passengers, final String airline) {
+            this.source = source;
+            this.destination = destination;
+            this.departureTime = departureTime;
+            this.passengers = passengers;
+            this.airline = airline;
+        }
+    }
+
+    private static final class ListReader implements FlightSource.Reader {
+
+        private final List<TestFlight> flights;
+        private int next = 0;
+        private TestFlight current = null;
+
+        private ListReader(final List<TestFlight> flights) {
+            this.flights = flights;
+        }
+
+        @Override
+        public boolean next() {
+            current = next < flights.size() ? flights.get(next++) : null;
+            return current != null;
+        }
+
+        @Override
+        public City getSource() {
+            return current.source;
+        }
+
+        @Override
+        public City getDestination() {
+            return current.destination;
+        }
+
+        @Override
+        public long getDepartureTime() {
+            return current.departureTime;
+        }
+
+        @Override
+        public int getPassengers() {
+            return current.passengers;
+        }
+
+        @Override
+        public String getAirline() {
+            return current.airline;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}